@@ -0,0 +1,107 @@
+package edblancas.api.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import edblancas.api.Game;
+import edblancas.api.Saying;
+import io.dropwizard.jackson.Jackson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ApiModule} serializers with the reflective bean serializers Dropwizard uses by default
+ * (with Blackbird), for JSON and XML. The size of each output is printed at setup.
+ * <p>
+ * Run with <code>mvn -Pjmh package</code> and
+ * <code>java -cp target/dropwizard-gettingstarted-1.0-SNAPSHOT.jar org.openjdk.jmh.Main SerializationBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private final Game game = new Game("nintendo", 1_234_567L, "Super Mario Odyssey", "Switch", "59.99", "1199.00");
+    private final Saying saying = new Saying(42L, "Hello, Stranger!");
+    private ObjectWriter reflectiveJson;
+    private ObjectWriter moduleJson;
+    private ObjectWriter reflectiveXml;
+    private ObjectWriter moduleXml;
+
+    @Setup
+    public void setUp() throws Exception {
+        final ObjectMapper jsonModuleMapper = Jackson.newObjectMapper();
+        jsonModuleMapper.registerModule(new ApiModule());
+        final XmlMapper xmlReflectiveMapper = new XmlMapper();
+        xmlReflectiveMapper.registerModule(new BlackbirdModule());
+        final XmlMapper xmlModuleMapper = new XmlMapper();
+        xmlModuleMapper.registerModule(new ApiModule());
+        reflectiveJson = Jackson.newObjectMapper().writer();
+        moduleJson = jsonModuleMapper.writer();
+        reflectiveXml = xmlReflectiveMapper.writer();
+        moduleXml = xmlModuleMapper.writer();
+        printSize("JSON game", reflectiveJson, moduleJson, game);
+        printSize("JSON saying", reflectiveJson, moduleJson, saying);
+        printSize("XML game", reflectiveXml, moduleXml, game);
+        printSize("XML saying", reflectiveXml, moduleXml, saying);
+    }
+
+    private static void printSize(final String title, final ObjectWriter reflective, final ObjectWriter module,
+                                  final Object value) throws Exception {
+        System.out.printf("%s: reflective %d bytes, module %d bytes%n", title,
+                reflective.writeValueAsBytes(value).length, module.writeValueAsBytes(value).length);
+    }
+
+    @Benchmark
+    public byte[] jsonGameReflective() throws Exception {
+        return reflectiveJson.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public byte[] jsonGameModule() throws Exception {
+        return moduleJson.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public byte[] jsonSayingReflective() throws Exception {
+        return reflectiveJson.writeValueAsBytes(saying);
+    }
+
+    @Benchmark
+    public byte[] jsonSayingModule() throws Exception {
+        return moduleJson.writeValueAsBytes(saying);
+    }
+
+    @Benchmark
+    public byte[] xmlGameReflective() throws Exception {
+        return reflectiveXml.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public byte[] xmlGameModule() throws Exception {
+        return moduleXml.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public byte[] xmlSayingReflective() throws Exception {
+        return reflectiveXml.writeValueAsBytes(saying);
+    }
+
+    @Benchmark
+    public byte[] xmlSayingModule() throws Exception {
+        return moduleXml.writeValueAsBytes(saying);
+    }
+}
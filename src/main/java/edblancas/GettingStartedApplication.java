@@ -1,14 +1,29 @@
 package edblancas;
 
-import com.amk.dropwizard.hbase.HBaseBundle;
-import com.amk.dropwizard.hbase.HBaseBundleConfiguration;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.jaxrs.xml.JacksonXMLProvider;
+import edblancas.api.json.ApiModule;
+import edblancas.changes.ChangeLog;
+import edblancas.changes.ChangeLogConfiguration;
+import edblancas.changes.GameChangeRecorder;
+import edblancas.cli.ImportCommand;
+import edblancas.cli.LoadTestCommand;
 import edblancas.db.GameDao;
+import edblancas.execution.RequestExecution;
+import edblancas.hbase.HBaseBundle;
+import edblancas.hbase.HBaseBundleConfiguration;
+import edblancas.health.HBaseHealthConfiguration;
 import edblancas.health.TemplateHealtCheck;
 import edblancas.resources.GameResource;
 import edblancas.resources.HelloWorldResource;
+import edblancas.warmup.WarmUpConfiguration;
 import io.dropwizard.Application;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import org.apache.hadoop.hbase.client.Table;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class GettingStartedApplication extends Application<GettingStartedConfiguration> {
 
@@ -23,7 +38,10 @@ public class GettingStartedApplication extends Application<GettingStartedConfigu
 
     @Override
     public void initialize(final Bootstrap<GettingStartedConfiguration> bootstrap) {
+        bootstrap.getObjectMapper().registerModule(new ApiModule());
         bootstrap.addBundle(hBaseBundle);
+        bootstrap.addCommand(new LoadTestCommand(this));
+        bootstrap.addCommand(new ImportCommand(hBaseBundle));
     }
 
     @Override
@@ -36,11 +54,59 @@ public class GettingStartedApplication extends Application<GettingStartedConfigu
         final TemplateHealtCheck healtCheck = new TemplateHealtCheck(configuration.getTemplate());
 
         final GameDao gameDao = new GameDao(hBaseBundle.getTable("games"));
-        final GameResource gameResource = new GameResource(gameDao);
+        final int saltBuckets = configuration.getSaltBuckets();
+        if (saltBuckets > 1) {
+            gameDao.setSalting(saltBuckets, environment.lifecycle().executorService("game-scan-%d")
+                    .minThreads(saltBuckets)
+                    .maxThreads(saltBuckets)
+                    .build(), hBaseBundle.getConnection());
+        }
+        gameDao.setConnection(hBaseBundle.getConnection());
+        final RequestExecution requestExecution = configuration.getRequestExecution();
+        final long requestTimeoutMillis = configuration.getRequestTimeout().toMilliseconds();
+        gameDao.setCallExecutor(requestExecution.buildCallExecutor(environment, configuration.getHbaseCallThreads()),
+                requestTimeoutMillis);
+        final GameResource gameResource = new GameResource(gameDao, requestExecution.build(environment),
+                requestTimeoutMillis);
 
         environment.healthChecks().register("template", healtCheck);
+        final HBaseHealthConfiguration hbaseHealthConfiguration = configuration.getHbaseHealth();
+        hbaseHealthConfiguration.register(environment, getTables(hbaseHealthConfiguration.getTables()));
         environment.jersey().register(helloResource);
         environment.jersey().register(gameResource);
+        final XmlMapper xmlMapper = new XmlMapper();
+        xmlMapper.registerModule(new ApiModule());
+        environment.jersey().register(new JacksonXMLProvider(xmlMapper));
+        if (configuration.getAdmission().isEnabled()) {
+            configuration.getAdmission().register(environment, gameDao);
+        }
+
+        final ChangeLogConfiguration changeLogConfiguration = configuration.getChangeLog();
+        if (changeLogConfiguration.isEnabled()) {
+            final ChangeLog changeLog = changeLogConfiguration.build(environment);
+            gameDao.setMutationListener(new GameChangeRecorder(environment.getObjectMapper(), changeLog));
+            changeLogConfiguration.registerResource(environment, changeLog);
+        }
+
+        final WarmUpConfiguration warmUpConfiguration = configuration.getWarmUp();
+        if (warmUpConfiguration.isEnabled()) {
+            warmUpConfiguration.register(environment, hBaseBundle.getConnection(), gameDao);
+        }
+    }
+
+    /**
+     * Gets the tables with the given names from the HBase bundle.
+     *
+     * @param names The table names.
+     * @return The tables, in the same order.
+     * @throws Exception In case a table cannot be obtained.
+     */
+    private List<Table> getTables(final List<String> names) throws Exception {
+        final List<Table> tables = new ArrayList<>(names.size());
+        for (final String name : names) {
+            tables.add(hBaseBundle.getTable(name));
+        }
+        return tables;
     }
 
     /**
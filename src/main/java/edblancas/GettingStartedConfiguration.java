@@ -1,9 +1,20 @@
 package edblancas;
 
-import com.amk.dropwizard.hbase.HBaseBundleConfiguration;
+import edblancas.admission.AdmissionConfiguration;
+import edblancas.changes.ChangeLogConfiguration;
+import edblancas.execution.RequestExecution;
+import edblancas.hbase.HBaseBundleConfiguration;
+import edblancas.health.HBaseHealthConfiguration;
+import edblancas.warmup.WarmUpConfiguration;
 import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import org.hibernate.validator.constraints.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 
 public class GettingStartedConfiguration extends Configuration {
     @NotEmpty
@@ -14,6 +25,35 @@ public class GettingStartedConfiguration extends Configuration {
 
     private HBaseBundleConfiguration hbaseBundleConfiguration;
 
+    @Min(1)
+    @Max(256)
+    private int saltBuckets = 1;
+
+    @NotNull
+    private RequestExecution requestExecution = RequestExecution.PLATFORM;
+
+    @Min(0)
+    private int hbaseCallThreads;
+
+    @NotNull
+    private Duration requestTimeout = Duration.seconds(30);
+
+    @Valid
+    @NotNull
+    private AdmissionConfiguration admission = new AdmissionConfiguration();
+
+    @Valid
+    @NotNull
+    private ChangeLogConfiguration changeLog = new ChangeLogConfiguration();
+
+    @Valid
+    @NotNull
+    private HBaseHealthConfiguration hbaseHealth = new HBaseHealthConfiguration();
+
+    @Valid
+    @NotNull
+    private WarmUpConfiguration warmUp = new WarmUpConfiguration();
+
     @JsonProperty
     public String getTemplate() {
         return template;
@@ -43,4 +83,84 @@ public class GettingStartedConfiguration extends Configuration {
     public void setHBaseBundleConfiguration(final HBaseBundleConfiguration hbaseBundleConfiguration) {
         this.hbaseBundleConfiguration = hbaseBundleConfiguration;
     }
+
+    @JsonProperty
+    public int getSaltBuckets() {
+        return saltBuckets;
+    }
+
+    @JsonProperty
+    public void setSaltBuckets(final int saltBuckets) {
+        this.saltBuckets = saltBuckets;
+    }
+
+    @JsonProperty
+    public ChangeLogConfiguration getChangeLog() {
+        return changeLog;
+    }
+
+    @JsonProperty
+    public void setChangeLog(final ChangeLogConfiguration changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    @JsonProperty
+    public RequestExecution getRequestExecution() {
+        return requestExecution;
+    }
+
+    @JsonProperty
+    public void setRequestExecution(final RequestExecution requestExecution) {
+        this.requestExecution = requestExecution;
+    }
+
+    @JsonProperty
+    public int getHbaseCallThreads() {
+        return hbaseCallThreads;
+    }
+
+    @JsonProperty
+    public void setHbaseCallThreads(final int hbaseCallThreads) {
+        this.hbaseCallThreads = hbaseCallThreads;
+    }
+
+    @JsonProperty
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    @JsonProperty
+    public void setRequestTimeout(final Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @JsonProperty
+    public AdmissionConfiguration getAdmission() {
+        return admission;
+    }
+
+    @JsonProperty
+    public void setAdmission(final AdmissionConfiguration admission) {
+        this.admission = admission;
+    }
+
+    @JsonProperty
+    public WarmUpConfiguration getWarmUp() {
+        return warmUp;
+    }
+
+    @JsonProperty
+    public void setWarmUp(final WarmUpConfiguration warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @JsonProperty
+    public HBaseHealthConfiguration getHbaseHealth() {
+        return hbaseHealth;
+    }
+
+    @JsonProperty
+    public void setHbaseHealth(final HBaseHealthConfiguration hbaseHealth) {
+        this.hbaseHealth = hbaseHealth;
+    }
 }
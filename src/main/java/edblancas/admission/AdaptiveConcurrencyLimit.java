@@ -0,0 +1,96 @@
+package edblancas.admission;
+
+import edblancas.db.LatencyListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adapted to the observed HBase latency with additive increase, multiplicative decrease (AIMD).
+ * <p>
+ * The baseline is the lowest latency seen, slowly drifting up so it follows permanent changes. While the smoothed
+ * latency stays under <code>baseline * tolerance</code> the limit grows by about one every <code>limit</code>
+ * calls, once it goes over it the limit is multiplied by the backoff ratio, at most once per smoothed latency so a
+ * single slow period is not punished several times.
+ * <p>
+ * The latency is the one of the DAO calls as seen by the caller, so it includes the time a call waits for one of
+ * the HBase call threads. The limit therefore backs off when HBase slows down and also when the call threads are
+ * saturated and the queue grows.
+ */
+public class AdaptiveConcurrencyLimit implements LatencyListener {
+    /** Weight of the last sample in the smoothed latency. */
+    private static final double SMOOTHING = 0.1;
+    /** How fast the baseline follows latencies over it. */
+    private static final double BASELINE_DRIFT = 0.001;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private volatile double limit;
+    private double smoothedNanos;
+    private double baselineNanos;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit,
+                                    final double backoffRatio, final double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Admits a request if the requests in flight are under the limit.
+     *
+     * @return True if admitted, in which case {@link #release()} must be called when the HBase work of the request
+     *      ends.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public synchronized void onCall(final long nanos) {
+        if (baselineNanos == 0) {
+            baselineNanos = nanos;
+            smoothedNanos = nanos;
+            return;
+        }
+        smoothedNanos += (nanos - smoothedNanos) * SMOOTHING;
+        baselineNanos = nanos < baselineNanos ? nanos : baselineNanos + (nanos - baselineNanos) * BASELINE_DRIFT;
+        final long now = System.nanoTime();
+        if (smoothedNanos > baselineNanos * tolerance) {
+            if (now - lastDecrease > smoothedNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double getSmoothedLatencyMillis() {
+        return smoothedNanos / 1e6;
+    }
+}
@@ -0,0 +1,189 @@
+package edblancas.admission;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edblancas.db.AbstractHBaseDAO;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configuration of the per-client rate limits and the adaptive concurrency limit of the admission control.
+ */
+public class AdmissionConfiguration {
+    private boolean enabled = true;
+
+    @DecimalMin("0.001")
+    private double permitsPerSecond = 100;
+
+    @Min(1)
+    private int burst = 200;
+
+    @Min(1)
+    private int stripes = 16;
+
+    @Min(1)
+    private long maxClients = 100_000;
+
+    @NotNull
+    private Duration clientExpiry = Duration.minutes(10);
+
+    /** API keys that identify a client, requests with other keys are limited by their IP address. */
+    @NotNull
+    private Set<String> apiKeys = new HashSet<>();
+
+    @Min(1)
+    private int initialLimit = 64;
+
+    @Min(1)
+    private int minLimit = 8;
+
+    @Min(1)
+    private int maxLimit = 512;
+
+    @DecimalMin("0.1")
+    @DecimalMax("0.99")
+    private double backoffRatio = 0.9;
+
+    @DecimalMin("1.0")
+    private double latencyTolerance = 2.0;
+
+    /**
+     * Registers the admission control filter, fed with the latency of the given DAO.
+     *
+     * @param environment The application environment.
+     * @param dao The DAO whose latency drives the concurrency limit.
+     */
+    public void register(final Environment environment, final AbstractHBaseDAO<?, ?> dao) {
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit,
+                maxLimit, backoffRatio, latencyTolerance);
+        dao.setLatencyListener(concurrencyLimit);
+        environment.jersey().register(new AdmissionControlFilter(permitsPerSecond, burst, stripes, maxClients,
+                clientExpiry.toMilliseconds(), apiKeys, concurrencyLimit, environment.metrics()));
+    }
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    @JsonProperty
+    public void setPermitsPerSecond(final double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    @JsonProperty
+    public int getBurst() {
+        return burst;
+    }
+
+    @JsonProperty
+    public void setBurst(final int burst) {
+        this.burst = burst;
+    }
+
+    @JsonProperty
+    public int getStripes() {
+        return stripes;
+    }
+
+    @JsonProperty
+    public void setStripes(final int stripes) {
+        this.stripes = stripes;
+    }
+
+    @JsonProperty
+    public long getMaxClients() {
+        return maxClients;
+    }
+
+    @JsonProperty
+    public void setMaxClients(final long maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    @JsonProperty
+    public Duration getClientExpiry() {
+        return clientExpiry;
+    }
+
+    @JsonProperty
+    public void setClientExpiry(final Duration clientExpiry) {
+        this.clientExpiry = clientExpiry;
+    }
+
+    @JsonProperty
+    public Set<String> getApiKeys() {
+        return apiKeys;
+    }
+
+    @JsonProperty
+    public void setApiKeys(final Set<String> apiKeys) {
+        this.apiKeys = apiKeys;
+    }
+
+    @JsonProperty
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @JsonProperty
+    public void setInitialLimit(final int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    @JsonProperty
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    @JsonProperty
+    public void setMinLimit(final int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    @JsonProperty
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    @JsonProperty
+    public void setMaxLimit(final int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    @JsonProperty
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    @JsonProperty
+    public void setBackoffRatio(final double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    @JsonProperty
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    @JsonProperty
+    public void setLatencyTolerance(final double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+}
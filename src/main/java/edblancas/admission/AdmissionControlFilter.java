@@ -0,0 +1,175 @@
+package edblancas.admission;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import javax.annotation.Priority;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load before HBase degrades. Each client, identified by its API key or its IP address, gets a token bucket
+ * and is answered 429 when it runs out of tokens. Admitted requests then count against an
+ * {@link AdaptiveConcurrencyLimit} and are answered 503 when it is reached. The resource takes the permit of an
+ * admitted request with {@link #takePermit(ContainerRequestContext)} and releases it once its HBase work ends, which
+ * can be after the request timed out; permits not taken are released with the response.
+ * <p>
+ * Only the configured API keys identify a client, requests with an unknown key share the bucket of their IP
+ * address, so sending a new key per request does not get a new bucket. Requests made by the application itself,
+ * like the warm-up and the load test, carry the {@link #BYPASS_HEADER} with a token generated at startup and are
+ * not limited.
+ * <p>
+ * The buckets are kept in a cache striped by the configured concurrency level and evicted after being idle or
+ * when there are too many clients. The admissions, rejections, limit and in-flight requests are published as
+ * <code>admission.*</code> metrics.
+ */
+@AdmissionControlled
+@Priority(Priorities.AUTHENTICATION - 100)
+public class AdmissionControlFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    public static final String API_KEY_HEADER = "X-Api-Key";
+    public static final String BYPASS_HEADER = "X-Admission-Bypass";
+    /** Token of the requests made in process, never leaves the JVM. */
+    private static final String BYPASS_TOKEN = newToken();
+    /** Request property holding the concurrency permit of an admitted request. */
+    private static final String PERMIT = AdmissionControlFilter.class.getName() + ".permit";
+    private final LoadingCache<String, TokenBucket> buckets;
+    private final Set<String> apiKeys;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Meter admitted;
+    private final Meter rateLimited;
+    private final Meter overloaded;
+    private final Meter bypassed;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    public AdmissionControlFilter(final double permitsPerSecond, final int burst, final int stripes,
+                                  final long maxClients, final long clientExpiryMillis, final Set<String> apiKeys,
+                                  final AdaptiveConcurrencyLimit concurrencyLimit, final MetricRegistry metrics) {
+        this.buckets = CacheBuilder.newBuilder()
+                .concurrencyLevel(stripes)
+                .maximumSize(maxClients)
+                .expireAfterAccess(clientExpiryMillis, TimeUnit.MILLISECONDS)
+                .build(CacheLoader.from(client -> new TokenBucket(permitsPerSecond, burst)));
+        this.apiKeys = apiKeys;
+        this.concurrencyLimit = concurrencyLimit;
+        this.admitted = metrics.meter("admission.admitted");
+        this.rateLimited = metrics.meter("admission.rejected.rate-limited");
+        this.overloaded = metrics.meter("admission.rejected.overloaded");
+        this.bypassed = metrics.meter("admission.bypassed");
+        metrics.register("admission.clients", (Gauge<Long>) buckets::size);
+        metrics.register("admission.concurrency.limit", (Gauge<Integer>) concurrencyLimit::getLimit);
+        metrics.register("admission.concurrency.in-flight", (Gauge<Integer>) concurrencyLimit::getInFlight);
+        metrics.register("admission.hbase.smoothed-latency-ms",
+                (Gauge<Double>) concurrencyLimit::getSmoothedLatencyMillis);
+    }
+
+    /**
+     * @return The token that exempts the requests made in process from the admission control.
+     */
+    public static String bypassToken() {
+        return BYPASS_TOKEN;
+    }
+
+    /**
+     * Takes the concurrency permit of the request, which then is not released with the response. The caller must
+     * release it once the work done for the request ends.
+     *
+     * @param request The request.
+     * @return The permit, a permit releasing nothing if the request was not admitted by this filter.
+     */
+    public static Permit takePermit(final ContainerRequestContext request) {
+        final Object permit = request.getProperty(PERMIT);
+        if (permit == null) {
+            return Permit.NONE;
+        }
+        request.removeProperty(PERMIT);
+        return (Permit) permit;
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext request) {
+        if (isBypass(request.getHeaderString(BYPASS_HEADER))) {
+            bypassed.mark();
+            return;
+        }
+        final long waitNanos = buckets.getUnchecked(clientOf(request)).tryAcquire();
+        if (waitNanos > 0) {
+            rateLimited.mark();
+            request.abortWith(Response.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)))
+                    .build());
+        } else if (!concurrencyLimit.tryAcquire()) {
+            overloaded.mark();
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        } else {
+            admitted.mark();
+            request.setProperty(PERMIT, new Permit(concurrencyLimit));
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext request, final ContainerResponseContext response) {
+        takePermit(request).release();
+    }
+
+    private String clientOf(final ContainerRequestContext request) {
+        final String apiKey = request.getHeaderString(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + servletRequest.getRemoteAddr();
+    }
+
+    private static boolean isBypass(final String token) {
+        return token != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                BYPASS_TOKEN.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String newToken() {
+        final byte[] token = new byte[32];
+        new SecureRandom().nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * A slot of the concurrency limit held by an admitted request. Releasing it more than once has no effect.
+     */
+    public static final class Permit {
+        /** Permit of the requests not admitted by the filter. */
+        private static final Permit NONE = new Permit(null);
+        private final AdaptiveConcurrencyLimit concurrencyLimit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(final AdaptiveConcurrencyLimit concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+
+        /**
+         * Gives the slot back to the concurrency limit.
+         */
+        public void release() {
+            if (concurrencyLimit != null && released.compareAndSet(false, true)) {
+                concurrencyLimit.release();
+            }
+        }
+    }
+}
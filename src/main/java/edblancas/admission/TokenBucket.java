@@ -0,0 +1,36 @@
+package edblancas.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket refilled at a constant rate up to its capacity, each request takes one token.
+ */
+class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(final double tokensPerSecond, final double capacity) {
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if available.
+     *
+     * @return 0 if the token was taken, otherwise the nanoseconds until the next token is available.
+     */
+    synchronized long tryAcquire() {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,64 @@
+package edblancas.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * A game update read from the change log. The game is kept as the JSON written to the log, so it is streamed
+ * without being parsed again.
+ * <p>
+ * A change of type {@link Type#RESET} has no game, it tells the consumer that it missed changes: it must reload its
+ * replica from the games table and then continue with the changes after the reset sequence.
+ */
+public class Change {
+    private long sequence;
+    private long timestamp;
+    private Type type;
+    private String game;
+
+    public Change() {
+        // Jackson deserialization
+    }
+
+    public Change(final long sequence, final long timestamp, final String game) {
+        this(sequence, timestamp, Type.UPDATE, game);
+    }
+
+    public Change(final long sequence, final long timestamp, final Type type, final String game) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.game = game;
+    }
+
+    @JsonProperty
+    public long getSequence() {
+        return sequence;
+    }
+
+    @JsonProperty
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty
+    public Type getType() {
+        return type;
+    }
+
+    @JsonProperty
+    @JsonRawValue
+    public String getGame() {
+        return game;
+    }
+
+    /**
+     * Kinds of change.
+     */
+    public enum Type {
+        /** A game was written. */
+        UPDATE,
+        /** The consumer must reload its replica. */
+        RESET
+    }
+}
@@ -0,0 +1,21 @@
+package edblancas.api.json;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import edblancas.api.Game;
+import edblancas.api.Saying;
+
+/**
+ * Registers the hand written serializers of the API objects. They replace the reflective bean serializers, write
+ * the fields in a fixed order with their names encoded once and shared by all the writes, and work for both the
+ * JSON and the XML mappers.
+ */
+public class ApiModule extends SimpleModule {
+    private static final long serialVersionUID = -5871205245208553067L;
+
+    public ApiModule() {
+        super("ApiModule");
+        addSerializer(Game.class, new GameSerializer());
+        addSerializer(Game.Key.class, new GameKeySerializer());
+        addSerializer(Saying.class, new SayingSerializer());
+    }
+}
@@ -0,0 +1,30 @@
+package edblancas.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import edblancas.api.Game;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Game.Key} without reflection.
+ */
+public class GameKeySerializer extends StdSerializer<Game.Key> {
+    private static final long serialVersionUID = -3192860624411372218L;
+
+    public GameKeySerializer() {
+        super(Game.Key.class);
+    }
+
+    @Override
+    public void serialize(final Game.Key key, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(GameSerializer.BRAND);
+        generator.writeString(key.getBrand());
+        generator.writeFieldName(GameSerializer.GAME_ID);
+        generator.writeNumber(key.getGameId());
+        generator.writeEndObject();
+    }
+}
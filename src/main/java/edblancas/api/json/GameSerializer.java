@@ -0,0 +1,46 @@
+package edblancas.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import edblancas.api.Game;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Game} with each field once. The brand and game id are written flat, the nested key is not
+ * written again.
+ */
+public class GameSerializer extends StdSerializer<Game> {
+    private static final long serialVersionUID = 2675520963474105327L;
+    static final SerializedString BRAND = new SerializedString("brand");
+    static final SerializedString GAME_ID = new SerializedString("gameId");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString CONSOLE = new SerializedString("console");
+    private static final SerializedString USD = new SerializedString("usd");
+    private static final SerializedString MXN = new SerializedString("mxn");
+
+    public GameSerializer() {
+        super(Game.class);
+    }
+
+    @Override
+    public void serialize(final Game game, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(BRAND);
+        generator.writeString(game.getBrand());
+        generator.writeFieldName(GAME_ID);
+        generator.writeNumber(game.getGameId());
+        generator.writeFieldName(NAME);
+        generator.writeString(game.getName());
+        generator.writeFieldName(CONSOLE);
+        generator.writeString(game.getConsole());
+        generator.writeFieldName(USD);
+        generator.writeString(game.getUsd());
+        generator.writeFieldName(MXN);
+        generator.writeString(game.getMxn());
+        generator.writeEndObject();
+    }
+}
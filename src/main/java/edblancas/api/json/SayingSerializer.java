@@ -0,0 +1,33 @@
+package edblancas.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import edblancas.api.Saying;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Saying} without reflection.
+ */
+public class SayingSerializer extends StdSerializer<Saying> {
+    private static final long serialVersionUID = 4471502946512297340L;
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString CONTENT = new SerializedString("content");
+
+    public SayingSerializer() {
+        super(Saying.class);
+    }
+
+    @Override
+    public void serialize(final Saying saying, final JsonGenerator generator, final SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(saying.getId());
+        generator.writeFieldName(CONTENT);
+        generator.writeString(saying.getContent());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,517 @@
+package edblancas.changes;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Ordered, durable log of changes stored in memory-mapped, append-only segment files. Every change gets the next
+ * sequence number, starting at 1, and readers ask for the changes after the last sequence they have seen.
+ * <p>
+ * Each segment is named after the first sequence it contains and holds records with the layout
+ * <code>[int length][int crc][long sequence][long timestamp][byte type][payload]</code>, the CRC32 covering all
+ * the other bytes of the record. The written data ends at the first record without the next sequence; a record
+ * whose checksum does not match, like one torn by a crash, ends it too and the rest of its segment is cleared on
+ * start, so the appends continue after the last valid record. Records are changes, or resets telling the readers
+ * that the games were written without going through the log, see {@link #requestReset(File)}. A new segment is
+ * started when the current one is full or the rotation period elapses, and only the configured number of segments
+ * is retained. The mapped segments are flushed to disk periodically and on stop. Every segment keeps the position of
+ * one in 256 records in memory, so reads start near the requested sequence instead of at the beginning of the
+ * segment.
+ * <p>
+ * Other processes, like the catalog import, cannot append to the log. They request a reset by leaving a file in the
+ * log directory, which the log turns into a reset record on start and on every flush.
+ */
+public class ChangeLog implements Managed {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeLog.class);
+    /** Length, checksum, sequence, timestamp and type. */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES + Byte.BYTES;
+    private static final int CRC_OFFSET = Integer.BYTES;
+    private static final int SEQUENCE_OFFSET = CRC_OFFSET + Integer.BYTES;
+    private static final int TIMESTAMP_OFFSET = SEQUENCE_OFFSET + Long.BYTES;
+    private static final int TYPE_OFFSET = TIMESTAMP_OFFSET + Long.BYTES;
+    /** The zeroed length, checksum and sequence that mark the end of the data. */
+    private static final int END_MARKER_SIZE = SEQUENCE_OFFSET + Long.BYTES;
+    private static final byte CHANGE = 0;
+    private static final byte RESET = 1;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String RESET_SUFFIX = ".reset";
+    /** Records between the positions kept in the segment index. */
+    private static final int INDEX_INTERVAL = 256;
+    private final File directory;
+    private final int segmentSize;
+    private final long rotationPeriodMillis;
+    private final long flushPeriodMillis;
+    private final int retainedSegments;
+    private final ScheduledExecutorService scheduler;
+    /** Segments by their first sequence. */
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    /** Futures returned by {@link #after(long)} waiting for the next change. */
+    private final Set<CompletableFuture<Long>> waiters = ConcurrentHashMap.newKeySet();
+    private Segment current;
+    private volatile long lastSequence;
+
+    public ChangeLog(final File directory, final int segmentSize, final long rotationPeriodMillis,
+                     final long flushPeriodMillis, final int retainedSegments,
+                     final ScheduledExecutorService scheduler) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.rotationPeriodMillis = rotationPeriodMillis;
+        this.flushPeriodMillis = flushPeriodMillis;
+        this.retainedSegments = retainedSegments;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the change log directory " + directory);
+        }
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            Arrays.sort(files);
+            for (final File file : files) {
+                final Segment segment = Segment.open(file, firstSequenceOf(file), file.length());
+                segment.recover();
+                segments.put(segment.firstSequence, segment);
+                current = segment;
+            }
+        }
+        if (current == null) {
+            rotate(1);
+        } else {
+            lastSequence = current.lastSequence == 0 ? current.firstSequence - 1 : current.lastSequence;
+            LOGGER.info("Recovered change log at sequence {} from {} segments", lastSequence, segments.size());
+        }
+        applyResetRequests();
+        scheduler.scheduleWithFixedDelay(() -> {
+            applyResetRequests();
+            flush();
+        }, flushPeriodMillis, flushPeriodMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::rotateIfUsed, rotationPeriodMillis, rotationPeriodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * Appends the payloads as consecutive changes.
+     *
+     * @param payloads The change payloads.
+     * @return The sequence of the last appended change.
+     * @throws IOException In case a new segment cannot be created.
+     */
+    public long append(final List<byte[]> payloads) throws IOException {
+        lock.lock();
+        try {
+            final long timestamp = System.currentTimeMillis();
+            for (final byte[] payload : payloads) {
+                if (HEADER_SIZE + payload.length + END_MARKER_SIZE > segmentSize) {
+                    throw new IllegalArgumentException("Change of " + payload.length
+                            + " bytes exceeds the segment size");
+                }
+                appendRecord(CHANGE, timestamp, payload);
+            }
+            signalAppended();
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Asks the change log in the given directory to append a reset, for writers of the games table that run in
+     * another process. The request is applied by the running server within a flush period, or on its next start.
+     *
+     * @param directory The change log directory.
+     * @throws IOException In case the request file cannot be created.
+     */
+    public static void requestReset(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the change log directory " + directory);
+        }
+        File.createTempFile("request-", RESET_SUFFIX, directory);
+    }
+
+    /**
+     * Appends a single reset for all the pending reset requests and deletes them.
+     */
+    private void applyResetRequests() {
+        final File[] requests = directory.listFiles((dir, name) -> name.endsWith(RESET_SUFFIX));
+        if (requests == null || requests.length == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            appendRecord(RESET, System.currentTimeMillis(), NO_PAYLOAD);
+            signalAppended();
+            LOGGER.info("Appended reset {} for {} requests", lastSequence, requests.length);
+        } catch (IOException e) {
+            LOGGER.error("Error appending a reset to the change log", e);
+            return;
+        } finally {
+            lock.unlock();
+        }
+        for (final File request : requests) {
+            if (!request.delete()) {
+                LOGGER.warn("Cannot delete the reset request {}", request);
+            }
+        }
+    }
+
+    /**
+     * Appends a record with the next sequence, starting a new segment if the current one is full. Must be called
+     * holding the lock.
+     */
+    private void appendRecord(final byte type, final long timestamp, final byte[] payload) throws IOException {
+        if (!current.append(lastSequence + 1, timestamp, type, payload)) {
+            rotate(lastSequence + 1);
+            current.append(lastSequence + 1, timestamp, type, payload);
+        }
+        lastSequence++;
+    }
+
+    /**
+     * Wakes up the readers waiting for new records. Must be called holding the lock.
+     */
+    private void signalAppended() {
+        appended.signalAll();
+        for (final Iterator<CompletableFuture<Long>> waiter = waiters.iterator(); waiter.hasNext();) {
+            final CompletableFuture<Long> future = waiter.next();
+            waiter.remove();
+            future.complete(lastSequence);
+        }
+    }
+
+    /**
+     * Tells whether the changes after the given sequence can be read. They cannot if the sequence is older than the
+     * retained segments, or newer than the last change, as when the log directory was deleted. The reader has
+     * missed changes and must start over from a snapshot of the games table.
+     *
+     * @param since The last sequence seen by the reader.
+     * @return True if the changes after the sequence are in the log.
+     */
+    public boolean isReadable(final long since) {
+        final Map.Entry<Long, Segment> oldest = segments.firstEntry();
+        return oldest != null && since >= oldest.getKey() - 1 && since <= lastSequence;
+    }
+
+    /**
+     * Reads the changes after the given sequence.
+     *
+     * @param since The last sequence seen by the reader, 0 to read from the beginning.
+     * @param max The maximum number of changes to read.
+     * @return The changes in sequence order, empty if there are no newer changes, or null if they are not readable,
+     *      see {@link #isReadable(long)}.
+     */
+    public List<Entry> read(final long since, final int max) {
+        if (!isReadable(since)) {
+            return null;
+        }
+        final List<Entry> entries = new ArrayList<>();
+        Map.Entry<Long, Segment> segment = segments.floorEntry(since + 1);
+        if (segment == null) {
+            // The segment was deleted by the retention after the check.
+            return null;
+        }
+        while (segment != null && entries.size() < max) {
+            segment.getValue().read(since, max, entries);
+            segment = segments.higherEntry(segment.getKey());
+        }
+        return entries;
+    }
+
+    /**
+     * Waits until there are changes after the given sequence.
+     *
+     * @param since The last sequence seen by the reader.
+     * @param timeout Maximum time to wait.
+     * @param unit Unit of the timeout.
+     * @return True if there are newer changes, false if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean await(final long since, final long timeout, final TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (lastSequence <= since && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            return lastSequence > since;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a future completed once there are changes after the given sequence, without blocking a thread while
+     * waiting. The future is completed holding the log lock, so its dependent actions must run asynchronously.
+     *
+     * @param since The last sequence seen by the reader.
+     * @return A future completed with the last sequence.
+     */
+    public CompletableFuture<Long> after(final long since) {
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (lastSequence > since) {
+                future.complete(lastSequence);
+            } else {
+                waiters.add(future);
+                // Forget futures completed elsewhere, for example on a timeout.
+                future.whenComplete((last, error) -> waiters.remove(future));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    private void rotateIfUsed() {
+        lock.lock();
+        try {
+            if (current.lastSequence > 0) {
+                rotate(lastSequence + 1);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error rotating the change log", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment and deletes the segments beyond the retention. Must be called holding the lock.
+     *
+     * @param firstSequence The sequence of the first change in the new segment.
+     * @throws IOException In case the segment file cannot be created.
+     */
+    private void rotate(final long firstSequence) throws IOException {
+        if (current != null) {
+            current.buffer.force();
+        }
+        final File file = new File(directory, String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        current = Segment.open(file, firstSequence, segmentSize);
+        segments.put(firstSequence, current);
+        LOGGER.debug("Started change log segment {}", file);
+        while (segments.size() > retainedSegments) {
+            final Segment oldest = segments.pollFirstEntry().getValue();
+            if (!oldest.file.delete()) {
+                LOGGER.warn("Cannot delete change log segment {}", oldest.file);
+            }
+        }
+    }
+
+    private void flush() {
+        final Segment segment = current;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    private static long firstSequenceOf(final File file) {
+        final String name = file.getName();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A change read from the log.
+     */
+    public static final class Entry {
+        private final long sequence;
+        private final long timestamp;
+        private final boolean reset;
+        private final byte[] payload;
+
+        private Entry(final long sequence, final long timestamp, final boolean reset, final byte[] payload) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.reset = reset;
+            this.payload = payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return True if the entry is a reset, which has no payload.
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * A mapped segment file. Records are written under the log lock and published through the volatile
+     * committed position, so readers never see a partially written record. The index is written before the
+     * committed position too, readers only trust the index positions under the committed one.
+     */
+    private static final class Segment {
+        private final File file;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private volatile int committed;
+        private long lastSequence;
+        /** Position of the records <code>firstSequence + i * INDEX_INTERVAL</code>. */
+        private int[] index = new int[16];
+
+        private Segment(final File file, final long firstSequence, final MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+        }
+
+        private static Segment open(final File file, final long firstSequence, final long size) throws IOException {
+            try (final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                 final FileChannel channel = raf.getChannel()) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                return new Segment(file, firstSequence, buffer);
+            }
+        }
+
+        /**
+         * Finds the end of the written records of a segment created before a restart. If it is not the zeroed end
+         * marker the record there is corrupt, and the rest of the segment is cleared so no later record outlives it.
+         */
+        private void recover() {
+            int position = 0;
+            boolean corrupt = false;
+            while (position + HEADER_SIZE <= buffer.capacity()) {
+                final int length = buffer.getInt(position);
+                final long sequence = buffer.getLong(position + SEQUENCE_OFFSET);
+                // Resets have no payload, the end of the data is told by the missing next sequence.
+                if (sequence != (lastSequence == 0 ? firstSequence : lastSequence + 1)
+                        || length < 0 || position + HEADER_SIZE + length > buffer.capacity()
+                        || buffer.getInt(position + CRC_OFFSET) != checksum(buffer, position, length)) {
+                    corrupt = sequence != 0 || length != 0 || buffer.getInt(position + CRC_OFFSET) != 0;
+                    break;
+                }
+                lastSequence = sequence;
+                indexRecord(lastSequence, position);
+                position += HEADER_SIZE + length;
+            }
+            committed = position;
+            if (corrupt) {
+                LOGGER.warn("Corrupt record after sequence {} in change log segment {}, dropping the rest of it",
+                        lastSequence == 0 ? firstSequence - 1 : lastSequence, file);
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            }
+        }
+
+        /**
+         * Computes the checksum of a record, over all its bytes but the checksum itself.
+         */
+        private static int checksum(final ByteBuffer buffer, final int position, final int length) {
+            final CRC32 crc = new CRC32();
+            final ByteBuffer record = buffer.duplicate();
+            record.limit(position + CRC_OFFSET).position(position);
+            crc.update(record);
+            record.limit(position + HEADER_SIZE + length).position(position + SEQUENCE_OFFSET);
+            crc.update(record);
+            return (int) crc.getValue();
+        }
+
+        private void indexRecord(final long sequence, final int position) {
+            final long record = sequence - firstSequence;
+            if (record % INDEX_INTERVAL == 0) {
+                final int slot = (int) (record / INDEX_INTERVAL);
+                if (slot >= index.length) {
+                    index = Arrays.copyOf(index, index.length * 2);
+                }
+                index[slot] = position;
+            }
+        }
+
+        /**
+         * Finds the position to start reading the changes after a sequence: the last indexed record not newer than
+         * the next sequence, or the beginning of the segment.
+         */
+        private int startOf(final long since, final int limit) {
+            final int[] positions = index;
+            final long slot = Math.max(0, since + 1 - firstSequence) / INDEX_INTERVAL;
+            for (int i = (int) Math.min(slot, positions.length - 1); i > 0; i--) {
+                if (positions[i] > 0 && positions[i] < limit) {
+                    return positions[i];
+                }
+            }
+            return 0;
+        }
+
+        private boolean append(final long sequence, final long timestamp, final byte type, final byte[] payload) {
+            final int position = committed;
+            // Keep room for the end marker.
+            if (position + HEADER_SIZE + payload.length + END_MARKER_SIZE > buffer.capacity()) {
+                return false;
+            }
+            final ByteBuffer record = buffer.duplicate();
+            record.position(position);
+            record.putInt(payload.length).putInt(0).putLong(sequence).putLong(timestamp).put(type).put(payload);
+            buffer.putInt(position + CRC_OFFSET, checksum(buffer, position, payload.length));
+            indexRecord(sequence, position);
+            lastSequence = sequence;
+            committed = record.position();
+            return true;
+        }
+
+        private void read(final long since, final int max, final List<Entry> entries) {
+            final int limit = committed;
+            final ByteBuffer records = buffer.duplicate();
+            int position = startOf(since, limit);
+            while (position < limit && entries.size() < max) {
+                final int length = records.getInt(position);
+                final long sequence = records.getLong(position + SEQUENCE_OFFSET);
+                if (sequence > since) {
+                    final byte[] payload = new byte[length];
+                    records.position(position + HEADER_SIZE);
+                    records.get(payload);
+                    entries.add(new Entry(sequence, records.getLong(position + TIMESTAMP_OFFSET),
+                            records.get(position + TYPE_OFFSET) == RESET, payload));
+                }
+                position += HEADER_SIZE + length;
+            }
+        }
+    }
+}
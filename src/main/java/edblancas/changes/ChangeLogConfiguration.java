@@ -0,0 +1,174 @@
+package edblancas.changes;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edblancas.resources.GameChangesResource;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.DataSizeUnit;
+import io.dropwizard.validation.MaxDataSize;
+import io.dropwizard.validation.MinDataSize;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Configuration of the game change log.
+ */
+public class ChangeLogConfiguration {
+    private boolean enabled = true;
+
+    @NotEmpty
+    private String directory = "changelog";
+
+    @NotNull
+    @MinDataSize(value = 1, unit = DataSizeUnit.MEBIBYTES)
+    @MaxDataSize(value = 1, unit = DataSizeUnit.GIBIBYTES)
+    private DataSize segmentSize = DataSize.mebibytes(64);
+
+    @NotNull
+    private Duration rotationPeriod = Duration.hours(1);
+
+    @NotNull
+    private Duration flushPeriod = Duration.seconds(1);
+
+    @Min(1)
+    private int retainedSegments = 24;
+
+    @NotNull
+    private Duration maxWait = Duration.seconds(30);
+
+    @NotNull
+    private Duration maxStreamDuration = Duration.minutes(5);
+
+    @Min(1)
+    private int maxStreams = 16;
+
+    /**
+     * Creates the change log and adds it to the application lifecycle.
+     *
+     * @param environment The application environment.
+     * @return The change log, started with the server.
+     */
+    public ChangeLog build(final Environment environment) {
+        final ChangeLog changeLog = new ChangeLog(new File(directory), (int) segmentSize.toBytes(),
+                rotationPeriod.toMilliseconds(), flushPeriod.toMilliseconds(), retainedSegments,
+                environment.lifecycle().scheduledExecutorService("changelog-%d").build());
+        environment.lifecycle().manage(changeLog);
+        return changeLog;
+    }
+
+    /**
+     * Registers the resource serving the changes, with the executors answering the polls and running at most
+     * {@link #getMaxStreams()} event streams.
+     *
+     * @param environment The application environment.
+     * @param changeLog The change log built by {@link #build(Environment)}.
+     */
+    public void registerResource(final Environment environment, final ChangeLog changeLog) {
+        environment.jersey().register(new GameChangesResource(changeLog, environment.getObjectMapper(),
+                maxWait.toMilliseconds(), maxStreamDuration.toMilliseconds(),
+                environment.lifecycle().executorService("changes-poll-%d")
+                        .minThreads(2)
+                        .maxThreads(2)
+                        .build(),
+                environment.lifecycle().executorService("changes-stream-%d")
+                        .minThreads(0)
+                        .maxThreads(maxStreams)
+                        .workQueue(new SynchronousQueue<>())
+                        .build()));
+    }
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public String getDirectory() {
+        return directory;
+    }
+
+    @JsonProperty
+    public void setDirectory(final String directory) {
+        this.directory = directory;
+    }
+
+    @JsonProperty
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    @JsonProperty
+    public void setSegmentSize(final DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @JsonProperty
+    public Duration getRotationPeriod() {
+        return rotationPeriod;
+    }
+
+    @JsonProperty
+    public void setRotationPeriod(final Duration rotationPeriod) {
+        this.rotationPeriod = rotationPeriod;
+    }
+
+    @JsonProperty
+    public Duration getFlushPeriod() {
+        return flushPeriod;
+    }
+
+    @JsonProperty
+    public void setFlushPeriod(final Duration flushPeriod) {
+        this.flushPeriod = flushPeriod;
+    }
+
+    @JsonProperty
+    public int getRetainedSegments() {
+        return retainedSegments;
+    }
+
+    @JsonProperty
+    public void setRetainedSegments(final int retainedSegments) {
+        this.retainedSegments = retainedSegments;
+    }
+
+    @JsonProperty
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    @JsonProperty
+    public void setMaxWait(final Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    @JsonProperty
+    public Duration getMaxStreamDuration() {
+        return maxStreamDuration;
+    }
+
+    @JsonProperty
+    public void setMaxStreamDuration(final Duration maxStreamDuration) {
+        this.maxStreamDuration = maxStreamDuration;
+    }
+
+    @JsonProperty
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    @JsonProperty
+    public void setMaxStreams(final int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+}
@@ -0,0 +1,31 @@
+package edblancas.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edblancas.api.Game;
+import edblancas.db.MutationListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends every game written through the DAO to the change log as JSON.
+ */
+public class GameChangeRecorder implements MutationListener<Game> {
+    private final ObjectMapper objectMapper;
+    private final ChangeLog changeLog;
+
+    public GameChangeRecorder(final ObjectMapper objectMapper, final ChangeLog changeLog) {
+        this.objectMapper = objectMapper;
+        this.changeLog = changeLog;
+    }
+
+    @Override
+    public void onPut(final List<Game> games) throws IOException {
+        final List<byte[]> payloads = new ArrayList<>(games.size());
+        for (final Game game : games) {
+            payloads.add(objectMapper.writeValueAsBytes(game));
+        }
+        changeLog.append(payloads);
+    }
+}
@@ -0,0 +1,73 @@
+package edblancas.cli;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the chunks of a catalog file already imported, so an interrupted import can be resumed. The first line
+ * identifies the catalog by its size, modification time and chunk size, then each imported chunk index is appended
+ * in its own line. A checkpoint of a different file or chunk size is discarded.
+ */
+class ImportCheckpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportCheckpoint.class);
+    private final File file;
+    private final Set<Integer> completed = new HashSet<>();
+
+    private ImportCheckpoint(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the checkpoint of a catalog, creating a new one if it does not exist or belongs to another file.
+     *
+     * @param file The checkpoint file.
+     * @param catalog The catalog being imported.
+     * @param chunkSize The chunk size used to split the catalog.
+     * @return The checkpoint.
+     * @throws IOException In case the checkpoint cannot be read or created.
+     */
+    static ImportCheckpoint open(final File file, final File catalog, final long chunkSize) throws IOException {
+        final String identity = catalog.length() + "," + catalog.lastModified() + "," + chunkSize;
+        final ImportCheckpoint checkpoint = new ImportCheckpoint(file);
+        if (file.exists()) {
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && identity.equals(lines.get(0))) {
+                for (final String line : lines.subList(1, lines.size())) {
+                    if (!line.isEmpty()) {
+                        checkpoint.completed.add(Integer.parseInt(line));
+                    }
+                }
+                LOGGER.info("Resuming import, {} chunks already imported", checkpoint.completed.size());
+                return checkpoint;
+            }
+            LOGGER.warn("Checkpoint {} belongs to another catalog or chunk size, starting over", file);
+        }
+        Files.write(file.toPath(), (identity + "\n").getBytes(StandardCharsets.UTF_8));
+        return checkpoint;
+    }
+
+    synchronized boolean isCompleted(final int chunk) {
+        return completed.contains(chunk);
+    }
+
+    /**
+     * Records a chunk as imported, forcing the checkpoint to disk.
+     *
+     * @param chunk The chunk index.
+     * @throws IOException In case the checkpoint cannot be written.
+     */
+    synchronized void complete(final int chunk) throws IOException {
+        Files.write(file.toPath(), (chunk + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        completed.add(chunk);
+    }
+}
@@ -0,0 +1,472 @@
+package edblancas.cli;
+
+import edblancas.GettingStartedConfiguration;
+import edblancas.api.Game;
+import edblancas.changes.ChangeLog;
+import edblancas.changes.ChangeLogConfiguration;
+import edblancas.db.GameDao;
+import edblancas.hbase.HBaseBundle;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Table;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Imports a catalog CSV file into the games table.
+ * <p>
+ * Only the HBase bundle is started, not the application. The file is split into chunks at line boundaries, each
+ * chunk is memory-mapped and parsed by a worker of a pool straight from its bytes, and its rows are written in
+ * batches through a {@link GameDao} over a <code>Table</code> of its own, as tables are not thread safe. The
+ * mutations in flight across all the workers are bounded, and every imported chunk is recorded in a checkpoint file
+ * so an interrupted import resumes with the chunks left. A chunk with a failed batch is not recorded, so it is
+ * retried on the next run, and the command fails once the other chunks are done.
+ * <p>
+ * The rows have the columns <code>brand,gameId,name,console,usd,mxn</code>, fields can be double quoted and a
+ * first line starting with <code>brand</code> is skipped as header. Line breaks inside quoted fields are not
+ * supported, such rows are reported as invalid. With <code>--dry-run</code> the rows are parsed and batched but not
+ * written, which exercises the whole import without HBase.
+ * <p>
+ * The imported games do not go through the change log. If it is enabled, once games were written the import
+ * requests a reset, see {@link ChangeLog#requestReset(File)}, so the change consumers reload their replicas.
+ * <p>
+ * Usage: <code>java -jar target/dropwizard-gettingstarted-1.0-SNAPSHOT.jar import config.yml catalog.csv</code>
+ */
+public class ImportCommand extends ConfiguredCommand<GettingStartedConfiguration> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportCommand.class);
+    /** Number of parse errors logged, the rest are only counted. */
+    private static final int LOGGED_ERRORS = 20;
+    private static final int COLUMNS = 6;
+    private static final TableName GAMES_TABLE = TableName.valueOf("games");
+    private final HBaseBundle<GettingStartedConfiguration> hBaseBundle;
+
+    public ImportCommand(final HBaseBundle<GettingStartedConfiguration> hBaseBundle) {
+        super("import", "Imports a catalog CSV file into the games table");
+        this.hBaseBundle = hBaseBundle;
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("catalog")
+                .type(Arguments.fileType().verifyCanRead())
+                .help("The catalog CSV file");
+        subparser.addArgument("--workers")
+                .type(Integer.class)
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .help("Number of parallel workers");
+        subparser.addArgument("--chunk-size")
+                .type(Integer.class)
+                .setDefault(8 * 1024 * 1024)
+                .help("Size in bytes of the chunks the file is split into");
+        subparser.addArgument("--batch-size")
+                .type(Integer.class)
+                .setDefault(500)
+                .help("Number of games written per batch");
+        subparser.addArgument("--max-in-flight")
+                .type(Integer.class)
+                .setDefault(5_000)
+                .help("Maximum number of games being written at the same time");
+        subparser.addArgument("--checkpoint")
+                .help("Checkpoint file, defaults to the catalog name with .checkpoint appended");
+        subparser.addArgument("--dry-run")
+                .action(Arguments.storeTrue())
+                .help("Parse the catalog without writing to HBase");
+    }
+
+    @Override
+    protected void run(final Bootstrap<GettingStartedConfiguration> bootstrap, final Namespace namespace,
+                       final GettingStartedConfiguration configuration) throws Exception {
+        final File catalog = namespace.get("catalog");
+        final int workers = namespace.getInt("workers");
+        final int chunkSize = namespace.getInt("chunk_size");
+        final int batchSize = namespace.getInt("batch_size");
+        final int maxInFlight = namespace.getInt("max_in_flight");
+        final boolean dryRun = namespace.getBoolean("dry_run");
+        if (workers < 1 || chunkSize < 1 || batchSize < 1 || maxInFlight < batchSize) {
+            throw new IllegalArgumentException("workers, chunk-size and batch-size must be positive and "
+                    + "max-in-flight at least the batch size");
+        }
+        final String checkpointName = namespace.getString("checkpoint");
+        final ImportCheckpoint checkpoint = ImportCheckpoint.open(
+                new File(checkpointName != null ? checkpointName : catalog.getPath() + ".checkpoint"),
+                catalog, chunkSize);
+        final Stats stats = new Stats();
+        final long start = System.nanoTime();
+        final List<LifeCycle> managed = dryRun ? new ArrayList<>() : startHBase(bootstrap, configuration);
+        try (final RandomAccessFile file = new RandomAccessFile(catalog, "r");
+             final FileChannel channel = file.getChannel()) {
+            final Connection connection = dryRun ? null : hBaseBundle.getConnection();
+            final List<long[]> chunks = split(channel, chunkSize);
+            LOGGER.info("Importing {} in {} chunks with {} workers{}", catalog, chunks.size(), workers,
+                    dryRun ? " (dry run)" : "");
+            final Semaphore inFlight = new Semaphore(maxInFlight);
+            final ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                final List<Future<?>> futures = new ArrayList<>(chunks.size());
+                for (int i = 0; i < chunks.size(); i++) {
+                    if (checkpoint.isCompleted(i)) {
+                        stats.skippedChunks.increment();
+                        continue;
+                    }
+                    final int chunk = i;
+                    futures.add(pool.submit(() -> {
+                        if (dryRun) {
+                            importChunk(channel, chunk, chunks.get(chunk), null, batchSize, inFlight, stats);
+                            return null;
+                        }
+                        try (final Table table = connection.getTable(GAMES_TABLE)) {
+                            final GameDao gameDao = new GameDao(table);
+                            gameDao.setSalting(configuration.getSaltBuckets(), null, null);
+                            importChunk(channel, chunk, chunks.get(chunk), gameDao, batchSize, inFlight, stats);
+                        }
+                        checkpoint.complete(chunk);
+                        return null;
+                    }));
+                }
+                for (final Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        stats.failedChunks.increment();
+                        LOGGER.error("Chunk import failed, it will be retried on the next run", e.getCause());
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+                if (!dryRun && stats.imported.sum() > 0) {
+                    requestChangeLogReset(configuration.getChangeLog());
+                }
+            }
+        } finally {
+            stop(managed);
+        }
+        report(System.out, stats, catalog.length(), System.nanoTime() - start);
+        if (stats.failedChunks.sum() > 0) {
+            throw new IllegalStateException(stats.failedChunks.sum()
+                    + " chunks failed to import, run the same command again to retry them");
+        }
+    }
+
+    /**
+     * Runs the HBase bundle in an environment of its own and starts the objects it manages, so the import gets an
+     * HBase connection without running the application.
+     *
+     * @param bootstrap The application bootstrap.
+     * @param configuration The application configuration.
+     * @return The started objects, to be stopped once the import ends.
+     * @throws Exception In case the bundle cannot be run or its objects started.
+     */
+    private List<LifeCycle> startHBase(final Bootstrap<GettingStartedConfiguration> bootstrap,
+                                       final GettingStartedConfiguration configuration) throws Exception {
+        final Environment environment = new Environment(bootstrap.getApplication().getName(),
+                bootstrap.getObjectMapper(), bootstrap.getValidatorFactory(), bootstrap.getMetricRegistry(),
+                bootstrap.getClassLoader(), bootstrap.getHealthCheckRegistry(), configuration);
+        hBaseBundle.run(configuration, environment);
+        final List<LifeCycle> started = new ArrayList<>();
+        try {
+            for (final LifeCycle lifeCycle : environment.lifecycle().getManagedObjects()) {
+                lifeCycle.start();
+                started.add(lifeCycle);
+            }
+        } catch (Exception e) {
+            stop(started);
+            throw e;
+        }
+        return started;
+    }
+
+    private void stop(final List<LifeCycle> started) {
+        for (int i = started.size() - 1; i >= 0; i--) {
+            try {
+                started.get(i).stop();
+            } catch (Exception e) {
+                LOGGER.warn("Error stopping {}", started.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * Asks the change log to append a reset, as the imported games were not recorded in it.
+     *
+     * @param changeLog The change log configuration.
+     */
+    private void requestChangeLogReset(final ChangeLogConfiguration changeLog) {
+        if (!changeLog.isEnabled()) {
+            return;
+        }
+        try {
+            ChangeLog.requestReset(new File(changeLog.getDirectory()));
+            LOGGER.info("Requested a change log reset, the change consumers will reload their replicas");
+        } catch (IOException e) {
+            LOGGER.error("Cannot request a change log reset, the change consumers miss the imported games", e);
+        }
+    }
+
+    /**
+     * Splits the file into chunks of about the given size, each one ending after a line break.
+     *
+     * @param channel The file channel.
+     * @param chunkSize The chunk size in bytes.
+     * @return The chunks as start and end positions, end excluded.
+     * @throws IOException In case the file cannot be read.
+     */
+    static List<long[]> split(final FileChannel channel, final int chunkSize) throws IOException {
+        final List<long[]> chunks = new ArrayList<>();
+        final long size = channel.size();
+        final ByteBuffer window = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            while (end < size) {
+                window.clear();
+                final int read = channel.read(window, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++) {
+                    if (window.get(i) == '\n') {
+                        newline = i;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+            }
+            chunks.add(new long[]{start, Math.min(end, size)});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Parses a chunk and writes its games in batches. The first row of the first chunk is skipped if it is the
+     * header.
+     *
+     * @param channel The catalog file channel.
+     * @param chunk The chunk index.
+     * @param range The chunk start and end positions, end excluded.
+     * @param gameDao The DAO writing the games, null to only parse them.
+     * @param batchSize The number of games written per batch.
+     * @param inFlight The permits for the games being written across all the workers.
+     * @param stats The import counters.
+     * @throws IOException In case the chunk cannot be read or a batch written.
+     */
+    static void importChunk(final FileChannel channel, final int chunk, final long[] range, final GameDao gameDao,
+                            final int batchSize, final Semaphore inFlight, final Stats stats) throws IOException {
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+        final RowReader rows = new RowReader(mapped);
+        List<Game> batch = new ArrayList<>(batchSize);
+        List<String> fields;
+        boolean first = chunk == 0;
+        while ((fields = rows.next()) != null) {
+            if (rows.isBlank() || (first && "brand".equals(fields.get(0)))) {
+                first = false;
+                continue;
+            }
+            first = false;
+            stats.rows.increment();
+            final Game game = rows.isQuoteOpen() ? null : parse(fields);
+            if (game == null) {
+                if (stats.parseErrors.sum() < LOGGED_ERRORS) {
+                    LOGGER.warn("Invalid row in chunk {}{}: {}", chunk,
+                            rows.isQuoteOpen() ? " (line breaks in quoted fields are not supported)" : "",
+                            rows.line());
+                }
+                stats.parseErrors.increment();
+                continue;
+            }
+            batch.add(game);
+            if (batch.size() == batchSize) {
+                write(gameDao, batch, inFlight, stats);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(gameDao, batch, inFlight, stats);
+        }
+    }
+
+    private static void write(final GameDao gameDao, final List<Game> batch, final Semaphore inFlight,
+                              final Stats stats) throws IOException {
+        if (gameDao != null) {
+            try {
+                inFlight.acquire(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to write a batch");
+            }
+            try {
+                gameDao.put(batch);
+            } catch (IOException e) {
+                stats.writeErrors.add(batch.size());
+                throw e;
+            } finally {
+                inFlight.release(batch.size());
+            }
+        }
+        stats.imported.add(batch.size());
+    }
+
+    /**
+     * Creates a game from the fields of a CSV row.
+     *
+     * @param fields The row fields.
+     * @return The game, null if the row is invalid.
+     */
+    static Game parse(final List<String> fields) {
+        if (fields.size() != COLUMNS || fields.get(0).isEmpty()) {
+            return null;
+        }
+        try {
+            return new Game(fields.get(0), Long.parseLong(fields.get(1).trim()), fields.get(2), fields.get(3),
+                    emptyToNull(fields.get(4)), emptyToNull(fields.get(5)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(final String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private void report(final PrintStream out, final Stats stats, final long bytes, final long elapsedNanos) {
+        final double seconds = elapsedNanos / 1e9;
+        out.printf(Locale.ROOT, "Rows: %d, imported: %d, parse errors: %d, write errors: %d%n", stats.rows.sum(),
+                stats.imported.sum(), stats.parseErrors.sum(), stats.writeErrors.sum());
+        out.printf(Locale.ROOT, "Chunks skipped from checkpoint: %d, failed: %d%n", stats.skippedChunks.sum(),
+                stats.failedChunks.sum());
+        out.printf(Locale.ROOT, "Elapsed: %.1fs, throughput: %.0f rows/s, %.1f MB/s%n", seconds,
+                stats.imported.sum() / seconds, bytes / seconds / (1024 * 1024));
+    }
+
+    /**
+     * Splits the rows of a mapped chunk into fields straight from its bytes, only the field values are decoded.
+     * A line break always ends a row, even inside a quoted field.
+     */
+    static final class RowReader {
+        private final ByteBuffer bytes;
+        private final List<String> fields = new ArrayList<>(COLUMNS);
+        private byte[] field = new byte[256];
+        private int position;
+        private int rowStart;
+        private boolean quoteOpen;
+
+        RowReader(final ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the next row.
+         *
+         * @return The row fields, reused by the next call, or null at the end of the chunk.
+         */
+        List<String> next() {
+            final int limit = bytes.limit();
+            if (position >= limit) {
+                return null;
+            }
+            fields.clear();
+            rowStart = position;
+            int length = 0;
+            boolean quoted = false;
+            while (position < limit) {
+                final byte b = bytes.get(position++);
+                if (b == '\n') {
+                    break;
+                } else if (quoted) {
+                    if (b == '"' && position < limit && bytes.get(position) == '"') {
+                        length = append(length, b);
+                        position++;
+                    } else if (b == '"') {
+                        quoted = false;
+                    } else {
+                        length = append(length, b);
+                    }
+                } else if (b == '"') {
+                    quoted = true;
+                } else if (b == ',') {
+                    fields.add(new String(field, 0, length, StandardCharsets.UTF_8));
+                    length = 0;
+                } else if (b != '\r') {
+                    length = append(length, b);
+                }
+            }
+            fields.add(new String(field, 0, length, StandardCharsets.UTF_8));
+            quoteOpen = quoted;
+            return fields;
+        }
+
+        private int append(final int length, final byte b) {
+            if (length == field.length) {
+                field = Arrays.copyOf(field, length * 2);
+            }
+            field[length] = b;
+            return length + 1;
+        }
+
+        /**
+         * @return True if the last row has no content.
+         */
+        boolean isBlank() {
+            return fields.size() == 1 && fields.get(0).isEmpty() && !quoteOpen;
+        }
+
+        /**
+         * @return True if the last row ended inside a quoted field.
+         */
+        boolean isQuoteOpen() {
+            return quoteOpen;
+        }
+
+        /**
+         * @return The last row as text, for error messages.
+         */
+        String line() {
+            final byte[] line = new byte[position - rowStart];
+            final ByteBuffer row = bytes.duplicate();
+            row.position(rowStart);
+            row.get(line);
+            return new String(line, StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    /**
+     * Import counters shared by the workers.
+     */
+    static final class Stats {
+        final LongAdder rows = new LongAdder();
+        final LongAdder imported = new LongAdder();
+        final LongAdder parseErrors = new LongAdder();
+        final LongAdder writeErrors = new LongAdder();
+        final LongAdder skippedChunks = new LongAdder();
+        final LongAdder failedChunks = new LongAdder();
+    }
+}
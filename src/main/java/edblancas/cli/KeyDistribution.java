@@ -0,0 +1,80 @@
+package edblancas.cli;
+
+import java.util.Random;
+
+/**
+ * Distributions used by the load test to pick the game identifiers requested.
+ */
+public enum KeyDistribution {
+    /** Every key has the same probability. */
+    UNIFORM {
+        @Override
+        public KeyGenerator create(final long keyCount) {
+            return random -> 1 + (long) (random.nextDouble() * keyCount);
+        }
+    },
+    /** A few keys get most of the requests, as in a real catalog where new releases are hot. */
+    ZIPFIAN {
+        @Override
+        public KeyGenerator create(final long keyCount) {
+            return new ZipfianGenerator(keyCount);
+        }
+    };
+
+    /**
+     * Creates a generator of keys between 1 and keyCount, both inclusive.
+     *
+     * @param keyCount The number of distinct keys.
+     * @return The generator, safe to share between threads.
+     */
+    public abstract KeyGenerator create(long keyCount);
+
+    /**
+     * Generates keys using the random source supplied by the caller, so a single generator can be used by
+     * several threads each with its own random.
+     */
+    @FunctionalInterface
+    public interface KeyGenerator {
+        long next(Random random);
+    }
+
+    /**
+     * Zipfian generator from Gray et al. "Quickly Generating Billion-Record Synthetic Databases", the same one used
+     * by YCSB. The zeta constant is computed once, so creation is linear in the key count.
+     */
+    private static final class ZipfianGenerator implements KeyGenerator {
+        private static final double THETA = 0.99;
+        private final long keyCount;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+
+        private ZipfianGenerator(final long keyCount) {
+            this.keyCount = keyCount;
+            this.zetaN = zeta(keyCount);
+            this.alpha = 1.0 / (1.0 - THETA);
+            this.eta = (1 - Math.pow(2.0 / keyCount, 1 - THETA)) / (1 - zeta(2) / zetaN);
+        }
+
+        private static double zeta(final long n) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, THETA);
+            }
+            return sum;
+        }
+
+        @Override
+        public long next(final Random random) {
+            final double u = random.nextDouble();
+            final double uz = u * zetaN;
+            if (uz < 1.0) {
+                return 1;
+            }
+            if (uz < 1.0 + Math.pow(0.5, THETA)) {
+                return 2;
+            }
+            return 1 + Math.min(keyCount - 1, (long) (keyCount * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
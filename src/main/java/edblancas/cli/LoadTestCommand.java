@@ -0,0 +1,266 @@
+package edblancas.cli;
+
+import edblancas.GettingStartedConfiguration;
+import edblancas.client.LocalEndpointClient;
+import io.dropwizard.Application;
+import io.dropwizard.cli.EnvironmentCommand;
+import io.dropwizard.setup.Environment;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the application in process and drives a constant request rate against one of its endpoints, printing the
+ * latency percentiles and the achieved throughput.
+ * <p>
+ * Requests follow a fixed schedule, the response time of each one is measured from the time it should have been
+ * sent, not from the time it was actually sent. This way a stalled server is charged for the requests it delayed
+ * (coordinated omission), the service time is reported apart for comparison.
+ * <p>
+ * The schedule starts once the warm-up is over, so its synthetic requests do not compete with the test, and its first
+ * <code>--ramp</code> seconds are not recorded, they let the clients connect and the pools grow before measuring.
+ * <p>
+ * The requests bypass the admission control unless <code>--admission</code> is given, otherwise the per-client rate
+ * limit would cap the test at the configured permits per second.
+ * <p>
+ * Usage: <code>java -jar target/dropwizard-gettingstarted-1.0-SNAPSHOT.jar loadtest --rate 500 config.yml</code>
+ */
+public class LoadTestCommand extends EnvironmentCommand<GettingStartedConfiguration> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestCommand.class);
+    /** Highest latency the histograms can record, in microseconds. */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    /** Name of the warm-up readiness health check. */
+    private static final String WARM_UP_CHECK = "warm-up";
+    private static final long WARM_UP_POLL_MILLIS = 500;
+
+    public LoadTestCommand(final Application<GettingStartedConfiguration> application) {
+        super(application, "loadtest", "Runs a constant rate load test against the in-process server");
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--target")
+                .choices("game", "hello")
+                .setDefault("game")
+                .help("The endpoint to call");
+        subparser.addArgument("--concurrency")
+                .type(Integer.class)
+                .setDefault(16)
+                .help("Number of concurrent clients");
+        subparser.addArgument("--rate")
+                .type(Integer.class)
+                .setDefault(1_000)
+                .help("Target requests per second");
+        subparser.addArgument("--duration")
+                .type(Integer.class)
+                .setDefault(30)
+                .help("Test duration in seconds");
+        subparser.addArgument("--ramp")
+                .type(Integer.class)
+                .setDefault(5)
+                .help("Seconds of load sent before the test and not recorded");
+        subparser.addArgument("--distribution")
+                .choices("uniform", "zipfian")
+                .setDefault("zipfian")
+                .help("Distribution of the requested keys");
+        subparser.addArgument("--keys")
+                .type(Long.class)
+                .setDefault(10_000L)
+                .help("Number of distinct game identifiers or names requested");
+        subparser.addArgument("--brand")
+                .setDefault("test")
+                .help("Brand of the requested games");
+        subparser.addArgument("--admission")
+                .action(Arguments.storeTrue())
+                .help("Send the requests through the admission control, by default they bypass it");
+    }
+
+    @Override
+    protected void run(final Environment environment, final Namespace namespace,
+                       final GettingStartedConfiguration configuration) throws Exception {
+        final Options options = new Options(namespace);
+        LocalEndpointClient.keepAlive(options.concurrency);
+        final Server server = configuration.getServerFactory().build(environment);
+        server.start();
+        try {
+            awaitWarmUp(environment);
+            LOGGER.info("Load testing {} at {} req/s with {} clients for {}s", options.target, options.rate,
+                    options.concurrency, options.durationSeconds);
+            report(System.out, options, drive(server, options));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Waits for the warm-up, if enabled, to complete or time out. Its health check stays unhealthy until then.
+     *
+     * @param environment The application environment.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void awaitWarmUp(final Environment environment) throws InterruptedException {
+        if (!environment.healthChecks().getNames().contains(WARM_UP_CHECK)) {
+            return;
+        }
+        LOGGER.info("Waiting for the warm-up to end");
+        while (!environment.healthChecks().runHealthCheck(WARM_UP_CHECK).isHealthy()) {
+            TimeUnit.MILLISECONDS.sleep(WARM_UP_POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Runs the load test, each client takes the next slot of the shared schedule until the test ends. The slots
+     * of the ramp are sent but not recorded.
+     *
+     * @param server The started server.
+     * @param options The test options.
+     * @return The test results.
+     * @throws InterruptedException If interrupted while waiting for the clients.
+     */
+    private Results drive(final Server server, final Options options) throws InterruptedException {
+        final Results results = new Results();
+        final KeyDistribution.KeyGenerator keys = options.distribution.create(options.keys);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        final AtomicLong slot = new AtomicLong();
+        final long start = System.nanoTime();
+        final long measured = start + TimeUnit.SECONDS.toNanos(options.rampSeconds);
+        final long end = measured + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        final ExecutorService clients = Executors.newFixedThreadPool(options.concurrency);
+        for (int i = 0; i < options.concurrency; i++) {
+            clients.execute(() -> {
+                final LocalEndpointClient client = LocalEndpointClient.forServer(server, !options.admission);
+                long intended;
+                while ((intended = start + slot.getAndIncrement() * intervalNanos) < end) {
+                    long wait;
+                    while ((wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                    }
+                    final long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.get(options.path(keys.next(ThreadLocalRandom.current())), "application/json");
+                    } catch (IOException e) {
+                        LOGGER.debug("Request failed", e);
+                        status = -1;
+                    }
+                    final long done = System.nanoTime();
+                    if (intended >= measured) {
+                        results.record(status, done - intended, done - sent);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        if (!clients.awaitTermination(options.rampSeconds + options.durationSeconds + 60L, TimeUnit.SECONDS)) {
+            LOGGER.warn("Clients still running after the test, stopping them");
+            clients.shutdownNow();
+            clients.awaitTermination(60, TimeUnit.SECONDS);
+        }
+        results.elapsedNanos = System.nanoTime() - measured;
+        return results;
+    }
+
+    private void report(final PrintStream out, final Options options, final Results results) {
+        final Histogram responseTime = results.responseTime.getIntervalHistogram();
+        final Histogram serviceTime = results.serviceTime.getIntervalHistogram();
+        final double seconds = results.elapsedNanos / 1e9;
+        out.printf(Locale.ROOT, "Target: %s, distribution: %s, keys: %d%n", options.target, options.distribution,
+                options.keys);
+        out.printf(Locale.ROOT, "Requests: %d in %.1fs, throughput: %.1f req/s (target %d req/s)%n",
+                responseTime.getTotalCount(), seconds, responseTime.getTotalCount() / seconds, options.rate);
+        out.printf(Locale.ROOT, "Status: 2xx=%d 4xx=%d 5xx=%d failed=%d%n", results.success.sum(),
+                results.clientErrors.sum(), results.serverErrors.sum(), results.failures.sum());
+        printPercentiles(out, "Response time (ms)", responseTime);
+        printPercentiles(out, "Service time (ms)", serviceTime);
+    }
+
+    private void printPercentiles(final PrintStream out, final String title, final Histogram histogram) {
+        out.printf(Locale.ROOT, "%-20s p50=%.3f p99=%.3f p99.9=%.3f max=%.3f%n", title,
+                histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxValue() / 1e3);
+    }
+
+    /**
+     * Parsed command line options.
+     */
+    private static final class Options {
+        private final String target;
+        private final int concurrency;
+        private final int rate;
+        private final int durationSeconds;
+        private final int rampSeconds;
+        private final KeyDistribution distribution;
+        private final long keys;
+        private final String brand;
+        private final boolean admission;
+
+        private Options(final Namespace namespace) {
+            this.target = namespace.getString("target");
+            this.concurrency = namespace.getInt("concurrency");
+            this.rate = namespace.getInt("rate");
+            this.durationSeconds = namespace.getInt("duration");
+            this.rampSeconds = namespace.getInt("ramp");
+            this.distribution = KeyDistribution.valueOf(namespace.getString("distribution").toUpperCase(Locale.ROOT));
+            this.keys = namespace.getLong("keys");
+            this.brand = namespace.getString("brand");
+            this.admission = namespace.getBoolean("admission");
+            if (concurrency < 1 || rate < 1 || durationSeconds < 1 || keys < 1) {
+                throw new IllegalArgumentException("concurrency, rate, duration and keys must be positive");
+            }
+            if (rampSeconds < 0) {
+                throw new IllegalArgumentException("ramp must not be negative");
+            }
+        }
+
+        private String path(final long key) {
+            return "game".equals(target) ? "/game/" + brand + "/" + key : "/hello-world?name=user" + key;
+        }
+    }
+
+    /**
+     * Results shared by the clients, the recorders are safe for concurrent writers.
+     */
+    private static final class Results {
+        private final Recorder responseTime = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Recorder serviceTime = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder success = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private long elapsedNanos;
+
+        private void record(final int status, final long responseNanos, final long serviceNanos) {
+            responseTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(responseNanos)));
+            serviceTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(serviceNanos)));
+            if (status < 0) {
+                failures.increment();
+            } else if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            } else {
+                success.increment();
+            }
+        }
+    }
+}
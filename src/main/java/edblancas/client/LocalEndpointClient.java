@@ -0,0 +1,105 @@
+package edblancas.client;
+
+import edblancas.admission.AdmissionControlFilter;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+/**
+ * Minimal HTTP client used to call the application endpoints of the server running in the same JVM. The body is
+ * always drained so the JDK keeps the connection alive between calls.
+ */
+public class LocalEndpointClient {
+    /** Name Dropwizard gives to the application connectors. */
+    private static final String APPLICATION_CONNECTOR = "application";
+    /** JDK setting with the idle connections kept alive per host. */
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+    /** Idle connections the JDK keeps per host if not configured. */
+    private static final int DEFAULT_MAX_CONNECTIONS = 5;
+    private static final int TIMEOUT_MILLIS = 30_000;
+    private final String baseUri;
+    /** Token sent to skip the admission control, null to be admitted like any other client. */
+    private final String admissionBypass;
+    private final byte[] buffer = new byte[8192];
+
+    private LocalEndpointClient(final String host, final int port, final String admissionBypass) {
+        this.baseUri = "http://" + host + ":" + port;
+        this.admissionBypass = admissionBypass;
+    }
+
+    /**
+     * Makes the JDK keep at least the given idle connections per host, so that many clients calling the same server
+     * reuse their connections instead of opening a new one for most requests. The JDK reads the setting once, so
+     * this must be called before the first HTTP request made in the JVM.
+     *
+     * @param connections The number of clients calling the server concurrently.
+     */
+    public static void keepAlive(final int connections) {
+        if (connections > Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS)) {
+            System.setProperty(MAX_CONNECTIONS_PROPERTY, Integer.toString(connections));
+        }
+    }
+
+    /**
+     * Creates a client pointing to the application connector of a started server.
+     *
+     * @param server The started Jetty server.
+     * @param bypassAdmission True to exempt the requests from the admission control, as they are made by the
+     *      application itself.
+     * @return A new client, not thread safe.
+     */
+    public static LocalEndpointClient forServer(final Server server, final boolean bypassAdmission) {
+        ServerConnector found = null;
+        for (final Connector connector : server.getConnectors()) {
+            if (connector instanceof ServerConnector) {
+                if (APPLICATION_CONNECTOR.equals(connector.getName())) {
+                    found = (ServerConnector) connector;
+                    break;
+                } else if (found == null) {
+                    found = (ServerConnector) connector;
+                }
+            }
+        }
+        if (found == null) {
+            throw new IllegalStateException("The server has no HTTP connector");
+        }
+        final String bindHost = found.getHost();
+        final String host = bindHost == null || "0.0.0.0".equals(bindHost) ? "localhost" : bindHost;
+        return new LocalEndpointClient(host, found.getLocalPort(),
+                bypassAdmission ? AdmissionControlFilter.bypassToken() : null);
+    }
+
+    /**
+     * Performs a GET to the given path, reading and discarding the response body. Connecting and reading time out
+     * after 30 seconds each.
+     *
+     * @param path The path including the query string.
+     * @param accept The accepted media type.
+     * @return The response status code.
+     * @throws IOException In case the request cannot be sent or the response read.
+     */
+    public int get(final String path, final String accept) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) URI.create(baseUri + path).toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", accept);
+        if (admissionBypass != null) {
+            connection.setRequestProperty(AdmissionControlFilter.BYPASS_HEADER, admissionBypass);
+        }
+        final int status = connection.getResponseCode();
+        final InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (body != null) {
+            try (final InputStream in = body) {
+                while (in.read(buffer) != -1) {
+                    // Drained so the connection can be reused.
+                }
+            }
+        }
+        return status;
+    }
+}
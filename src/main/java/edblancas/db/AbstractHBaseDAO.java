@@ -7,10 +7,27 @@
 package edblancas.db;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
@@ -50,6 +67,13 @@ public abstract class AbstractHBaseDAO<K, V> {
     private static final byte[] COUNTER_COLUMN_NAME = Bytes.toBytes("c");
     /** Table last identifier. */
     private static final byte[] IDENTIFIER_COLUMN_NAME = Bytes.toBytes("i");
+    /** Number of locks the rows are spread across while written with a mutation listener. */
+    private static final int ROW_LOCK_STRIPES = 1_024;
+    /** Maximum number of salt buckets, the salt is stored in a single byte. */
+    private static final int MAX_SALT_BUCKETS = 256;
+    /** Orders salted results by the original row key, ignoring the salt byte. */
+    private static final Comparator<Result> UNSALTED_ROW_ORDER = (left, right) -> Bytes.compareTo(
+            left.getRow(), 1, left.getRow().length - 1, right.getRow(), 1, right.getRow().length - 1);
     /** Table used for serialization. */
     private final transient Table table;
     /** Table used as reverse index. */
@@ -58,6 +82,24 @@ public abstract class AbstractHBaseDAO<K, V> {
     private transient Table countersTable;
     /** Flag used to test if the paging can be done in reverse. */
     private transient boolean useReverseIndex;
+    /** Number of buckets the row keys are spread across, 1 means the row keys are not salted. */
+    private transient int saltBuckets = 1;
+    /** Executor used to scan the salt buckets in parallel, if null the buckets are scanned sequentially. */
+    private transient ExecutorService scanExecutor;
+    /** Connection the parallel bucket scans get their own table from. */
+    private transient Connection scanConnection;
+    /** Listener notified of every written object, may be null. */
+    private transient MutationListener<V> mutationListener;
+    /** Locks serializing the writes of a row with their notification. */
+    private final transient Striped<Lock> rowLocks = Striped.lock(ROW_LOCK_STRIPES);
+    /** Connection every call takes its own tables from, if null the calls share the tables given at creation. */
+    private transient Connection callConnection;
+    /** Executor running the HBase calls, if null the calls run on the calling thread. */
+    private transient ExecutorService callExecutor;
+    /** Time the caller waits for a call running on the call executor. */
+    private transient long callTimeoutMillis;
+    /** Listener notified of the latency of every HBase call, may be null. */
+    private transient LatencyListener latencyListener;
 
     /**
      * Sets the table to interact with at creation. If the reverseIndex parameter is null then its assumed that
@@ -78,6 +120,92 @@ public abstract class AbstractHBaseDAO<K, V> {
         this.table = table;
     }
 
+    /**
+     * Enables row key salting for the main table. Each row key is prefixed with a byte derived from its hash, so
+     * sequential keys are spread across <code>saltBuckets</code> key ranges instead of hitting the last region.
+     * The salt is transparent to {@link #get(Object)} and {@link #scanForward(Object, long)}, the latter scans all
+     * the buckets and merges the results in row key order. The bucket count must not change once data is written.
+     * <p>
+     * Salting is not supported with a reverse index, whose entries point to the unsalted row keys, nor with
+     * {@link #scan(Filter...)}, whose filters would see the salted row keys.
+     *
+     * @param saltBuckets The number of salt buckets, between 1 and 256. 1 disables salting.
+     * @param scanExecutor The executor used to scan the buckets in parallel, may be null to scan sequentially.
+     * @param connection The connection each parallel bucket scan gets its own <code>Table</code> from, as tables
+     *      are not thread safe. Required if there is a scan executor.
+     */
+    public final void setSalting(final int saltBuckets, final ExecutorService scanExecutor,
+                                 final Connection connection) {
+        if (saltBuckets < 1 || saltBuckets > MAX_SALT_BUCKETS) {
+            throw new IllegalArgumentException("Salt buckets must be between 1 and " + MAX_SALT_BUCKETS);
+        }
+        if (scanExecutor != null && connection == null) {
+            throw new IllegalArgumentException("A connection is required to scan the salt buckets in parallel");
+        }
+        if (saltBuckets > 1 && useReverseIndex) {
+            throw new IllegalStateException("Salting is not supported with a reverse index");
+        }
+        this.saltBuckets = saltBuckets;
+        this.scanExecutor = scanExecutor;
+        this.scanConnection = connection;
+    }
+
+    /**
+     * Sets the listener notified after every put, for example to feed a change log. Concurrent writes of the same
+     * row are serialized with their notification, so the listener sees them in the order HBase applied them.
+     *
+     * @param mutationListener The listener, null to remove it.
+     */
+    public final void setMutationListener(final MutationListener<V> mutationListener) {
+        this.mutationListener = mutationListener;
+    }
+
+    /**
+     * Sets the connection every call made through this DAO takes its tables from, closing them once the call ends.
+     * The tables given at creation are not thread safe, a 1.x <code>HTable</code> buffers the puts of all its
+     * callers in a single <code>BufferedMutator</code>, so a DAO used by concurrent callers must have a connection.
+     * Getting a table from a connection is cheap.
+     *
+     * @param connection The connection, null to use the tables given at creation.
+     */
+    public final void setConnection(final Connection connection) {
+        this.callConnection = connection;
+    }
+
+    /**
+     * Sets the executor the HBase calls made through this DAO run on, the caller waits for their result. The HBase
+     * client waits for the server answers inside <code>synchronized</code> blocks, which pin a virtual thread to its
+     * carrier, so callers running on virtual threads must hand the calls to a bounded pool of platform threads.
+     * The pool size is also the maximum number of concurrent calls. A call not finished within the timeout is
+     * cancelled, removing it from the executor queue if it did not start yet.
+     * <p>
+     * The pool threads run calls concurrently, so a connection must be set first with
+     * {@link #setConnection(Connection)}.
+     *
+     * @param callExecutor The executor, null to run the calls on the calling thread.
+     * @param callTimeoutMillis The time to wait for a call, ignored without executor.
+     */
+    public final void setCallExecutor(final ExecutorService callExecutor, final long callTimeoutMillis) {
+        if (callExecutor != null && callConnection == null) {
+            throw new IllegalStateException("A connection is required to run the calls on an executor");
+        }
+        if (callExecutor != null && callTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("The call timeout must be positive");
+        }
+        this.callExecutor = callExecutor;
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    /**
+     * Sets the listener notified of the latency of every call made through this DAO, for example to adapt the
+     * load admitted by the application to the HBase response times.
+     *
+     * @param latencyListener The listener, null to remove it.
+     */
+    public final void setLatencyListener(final LatencyListener latencyListener) {
+        this.latencyListener = latencyListener;
+    }
+
     /**
      * Inserts a single object into the table.
      *
@@ -85,14 +213,34 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException In case of errors while serializing the record to HBase.
      */
     public final void put(final V object) throws IOException {
+        call((table, reverseIndex, countersTable) -> {
+            putObject(table, reverseIndex, countersTable, object);
+            return null;
+        });
+    }
+
+    private void putObject(final Table table, final Table reverseIndex, final Table countersTable,
+                           final V object) throws IOException {
         LOGGER.debug("Inserting: {}", object);
-        final Put put = createPut(object);
-        table.put(put);
-        countersTable.incrementColumnValue(table.getName().toBytes(), COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, 1);
-        if (useReverseIndex) {
-            reverseIndex.put(createReversePut(createReverseRowKeyFromObject(object), createRowKeyFromObject(object)));
-            countersTable.incrementColumnValue(reverseIndex.getName().toBytes(),
-                    COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, 1);
+        final Put put = saltPut(createPut(object));
+        final List<Lock> locks = lockRows(Collections.singletonList(put));
+        try {
+            table.put(put);
+            if (countersTable != null) {
+                countersTable.incrementColumnValue(table.getName().toBytes(),
+                        COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, 1);
+            }
+            if (useReverseIndex) {
+                reverseIndex.put(createReversePut(createReverseRowKeyFromObject(object),
+                        createRowKeyFromObject(object)));
+                countersTable.incrementColumnValue(reverseIndex.getName().toBytes(),
+                        COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, 1);
+            }
+            if (mutationListener != null) {
+                mutationListener.onPut(Collections.singletonList(object));
+            }
+        } finally {
+            unlockRows(locks);
         }
     }
 
@@ -103,24 +251,43 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException In case of errors while serializing the record in HBase.
      */
     public final void put(final List<V> objects) throws IOException {
+        call((table, reverseIndex, countersTable) -> {
+            putObjects(table, reverseIndex, countersTable, objects);
+            return null;
+        });
+    }
+
+    private void putObjects(final Table table, final Table reverseIndex, final Table countersTable,
+                            final List<V> objects) throws IOException {
         LOGGER.debug("Inserting {} objects", objects.size());
         final List<Put> puts = new ArrayList<>(objects.size());
         for (final V object : objects) {
             LOGGER.debug("Converting to Put: {}", object);
-            puts.add(createPut(object));
+            puts.add(saltPut(createPut(object)));
         }
-        table.put(puts);
-        countersTable.incrementColumnValue(table.getName().toBytes(),
-                COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, puts.size());
-        if (useReverseIndex) {
-            LOGGER.debug("Generating reverse index");
-            puts.clear();
-            for (final V object : objects) {
-                puts.add(createReversePut(createReverseRowKeyFromObject(object), createRowKeyFromObject(object)));
+        final List<Lock> locks = lockRows(puts);
+        try {
+            table.put(puts);
+            if (countersTable != null) {
+                countersTable.incrementColumnValue(table.getName().toBytes(),
+                        COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, puts.size());
             }
-            reverseIndex.put(puts);
-            countersTable.incrementColumnValue(reverseIndex.getName().toBytes(),
-                    COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, puts.size());
+            if (useReverseIndex) {
+                LOGGER.debug("Generating reverse index");
+                puts.clear();
+                for (final V object : objects) {
+                    puts.add(createReversePut(createReverseRowKeyFromObject(object),
+                            createRowKeyFromObject(object)));
+                }
+                reverseIndex.put(puts);
+                countersTable.incrementColumnValue(reverseIndex.getName().toBytes(),
+                        COUNTER_COLUMN_FAMILY, COUNTER_COLUMN_NAME, puts.size());
+            }
+            if (mutationListener != null) {
+                mutationListener.onPut(objects);
+            }
+        } finally {
+            unlockRows(locks);
         }
     }
 
@@ -132,8 +299,12 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException in case of errors while recovering the record from HBase.
      */
     public final V get(final K rowKey) throws IOException {
-        final byte[] rowKeyArray = createRowKey(rowKey);
-        LOGGER.debug("Get to table: {}, Row key: {}", table.getName(), new String(rowKeyArray));
+        return call((table, reverseIndex, countersTable) -> getObject(table, rowKey));
+    }
+
+    private V getObject(final Table table, final K rowKey) throws IOException {
+        final byte[] rowKeyArray = saltRowKey(createRowKey(rowKey));
+        LOGGER.debug("Get to table: {}, Row key: {}", table.getName(), Bytes.toStringBinary(rowKeyArray));
         final Get get = new Get(rowKeyArray);
         final Result result = table.get(get);
 
@@ -153,6 +324,10 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException In case of errors while querying HBase.
      */
     public final long count() throws IOException {
+        return call((table, reverseIndex, countersTable) -> countRows(table));
+    }
+
+    private long countRows(final Table table) throws IOException {
         final Get get = new Get(table.getName().toBytes());
         final Result count = table.get(get);
         final long rowCount;
@@ -174,6 +349,13 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException In case of errors while querying the HBase database.
      */
     public final List<V> scanForward(final K fromKey, final long pageSize) throws IOException {
+        return call((table, reverseIndex, countersTable) -> scanForwardPage(table, fromKey, pageSize));
+    }
+
+    private List<V> scanForwardPage(final Table table, final K fromKey, final long pageSize) throws IOException {
+        if (saltBuckets > 1) {
+            return scanForwardSalted(table, fromKey, pageSize);
+        }
         final List<V> page = new ArrayList<>();
         final Filter filters;
         final Scan scan;
@@ -184,7 +366,7 @@ public abstract class AbstractHBaseDAO<K, V> {
         } else {
             final Filter prefixFilter = createPrefixFilter(fromKey);
             final byte[] startRow = Bytes.add(createRowKey(fromKey), CERO_BYTE_ARRAY); // Used to skip the last record.
-            scan = new Scan(startRow);
+            scan = new Scan().withStartRow(startRow);
             if (prefixFilter != null) {
                 filters = new FilterList(prefixFilter, pageFilter);
             } else {
@@ -201,6 +383,116 @@ public abstract class AbstractHBaseDAO<K, V> {
         return page;
     }
 
+    /**
+     * Salted version of {@link #scanForward(Object, long)}. Every bucket is scanned from the salted start row up to
+     * the next bucket, each one returning at most a page, then the bucket pages are merge-sorted by the original
+     * row key and the first page of the merged results is returned.
+     *
+     * @param table The table of the call, scanned when the buckets are scanned sequentially.
+     * @param fromKey The last key found. This record is excluded from the extracted page.
+     * @param pageSize The size of the page to retrieve.
+     * @return The found records, empty list if no more records or maximum the page size.
+     * @throws IOException In case of errors while querying the HBase database.
+     */
+    private List<V> scanForwardSalted(final Table table, final K fromKey, final long pageSize) throws IOException {
+        final byte[] startRow;
+        final byte[] prefix;
+        if (fromKey == null) {
+            startRow = new byte[0];
+            prefix = null;
+        } else {
+            final PrefixFilter prefixFilter = createPrefixFilter(fromKey);
+            startRow = Bytes.add(createRowKey(fromKey), CERO_BYTE_ARRAY); // Used to skip the last record.
+            prefix = prefixFilter == null ? null : prefixFilter.getPrefix();
+        }
+        final List<Scan> scans = new ArrayList<>(saltBuckets);
+        for (int bucket = 0; bucket < saltBuckets; bucket++) {
+            final byte[] salt = {(byte) bucket};
+            final Scan scan = new Scan().withStartRow(Bytes.add(salt, startRow));
+            if (bucket + 1 < saltBuckets) {
+                scan.withStopRow(new byte[]{(byte) (bucket + 1)});
+            }
+            final Filter pageFilter = new PageFilter(pageSize);
+            if (prefix != null) {
+                scan.setFilter(new FilterList(new PrefixFilter(Bytes.add(salt, prefix)), pageFilter));
+            } else {
+                scan.setFilter(new FilterList(pageFilter));
+            }
+            scans.add(scan);
+        }
+        final List<Iterator<Result>> buckets = new ArrayList<>(saltBuckets);
+        if (scanExecutor == null) {
+            for (final Scan scan : scans) {
+                buckets.add(scanBucket(table, scan, pageSize).iterator());
+            }
+        } else {
+            final List<Future<List<Result>>> futures = new ArrayList<>(saltBuckets);
+            try {
+                for (final Scan scan : scans) {
+                    futures.add(scanExecutor.submit(() -> {
+                        try (final Table bucketTable = scanConnection.getTable(table.getName())) {
+                            return scanBucket(bucketTable, scan, pageSize);
+                        }
+                    }));
+                }
+                for (final Future<List<Result>> future : futures) {
+                    buckets.add(awaitBucket(future).iterator());
+                }
+            } finally {
+                for (final Future<List<Result>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        final List<V> page = new ArrayList<>();
+        final Iterator<Result> merged = Iterators.mergeSorted(buckets, UNSALTED_ROW_ORDER);
+        while (merged.hasNext() && page.size() < pageSize) {
+            page.add(createObject(merged.next()));
+        }
+        return page;
+    }
+
+    /**
+     * Scans a single salt bucket, reading at most the given number of records.
+     *
+     * @param bucketTable The table to scan, used only by the calling thread.
+     * @param scan The bucket scan.
+     * @param limit The maximum number of records to read.
+     * @return The bucket records in row key order.
+     * @throws IOException In case of errors while querying the HBase database.
+     */
+    private List<Result> scanBucket(final Table bucketTable, final Scan scan, final long limit) throws IOException {
+        final List<Result> results = new ArrayList<>();
+        try (final ResultScanner scanner = bucketTable.getScanner(scan)) {
+            final Iterator<Result> resultIterator = scanner.iterator();
+            while (results.size() < limit && resultIterator.hasNext()) {
+                results.add(resultIterator.next());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Waits for a bucket scan, unwrapping the HBase errors.
+     *
+     * @param future The bucket scan future.
+     * @return The bucket records.
+     * @throws IOException In case of errors while querying the HBase database or if interrupted while waiting.
+     */
+    private List<Result> awaitBucket(final Future<List<Result>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning the salt buckets");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error scanning a salt bucket", e.getCause());
+        }
+    }
+
     /**
      * This method scans the reverse index table, as HBase only scans from a row forward the pagination must be
      * done using different tables. The row key is stored in ascending order.
@@ -211,6 +503,12 @@ public abstract class AbstractHBaseDAO<K, V> {
      * @throws IOException In case of errors while querying the HBase database.
      */
     public final List<V> scanBackward(final K fromKey, final long pageSize) throws IOException {
+        return call((table, reverseIndex, countersTable) ->
+                scanBackwardPage(table, reverseIndex, fromKey, pageSize));
+    }
+
+    private List<V> scanBackwardPage(final Table table, final Table reverseIndex, final K fromKey,
+                                     final long pageSize) throws IOException {
         if (useReverseIndex) {
             final List<V> page = new ArrayList<>();
             final Filter filters;
@@ -223,7 +521,7 @@ public abstract class AbstractHBaseDAO<K, V> {
                 final Filter prefixFilter = createPrefixFilter(fromKey);
                 // Used to skip the last record.
                 final byte[] startRow = Bytes.add(createReverseRowKey(fromKey), CERO_BYTE_ARRAY);
-                scan = new Scan(startRow);
+                scan = new Scan().withStartRow(startRow);
                 if (prefixFilter != null) {
                     filters = new FilterList(prefixFilter, pageFilter);
                 } else {
@@ -247,7 +545,7 @@ public abstract class AbstractHBaseDAO<K, V> {
                     result = resultIterator.next();
                 }
                 if (result != null && lastRowKey != null) {
-                    final Scan rangeScan = new Scan(result.getRow(), lastRowKey);
+                    final Scan rangeScan = new Scan().withStartRow(result.getRow()).withStopRow(lastRowKey);
                     try (final ResultScanner resultScanner = table.getScanner(rangeScan)) {
                         final Iterator<Result> iterator = resultScanner.iterator();
                         page.add(createObject(iterator.next()));
@@ -274,13 +572,23 @@ public abstract class AbstractHBaseDAO<K, V> {
     /**
      * This method scans the table for records matching the different filters. This method has a limit of 1,000
      * records to prevent memory exhaustion. Also, the caller must add to the filters the prefix filter if needed.
-     * This method also throws an IllegalStateException if no filter is provided.
+     * This method also throws an IllegalArgumentException if no filter is provided.
+     * <p>
+     * Not supported with salting: the filters would see the salted row keys and the records would come in salted
+     * order, so an IllegalStateException is thrown when more than one salt bucket is configured.
      *
      * @param filters The filters to apply for the scan.
      * @return The found records, empty list if no records found matching the filter criteria.
      * @throws IOException In case of errors while querying the HBase database.
      */
     protected final List<V> scan(final Filter...filters) throws IOException {
+        if (saltBuckets > 1) {
+            throw new IllegalStateException("Filtered scans are not supported with salting");
+        }
+        return call((table, reverseIndex, countersTable) -> scanFiltered(table, filters));
+    }
+
+    private List<V> scanFiltered(final Table table, final Filter...filters) throws IOException {
         if (filters == null || filters.length == 0) {
             throw new IllegalArgumentException("Must provided at least one filter");
         } else {
@@ -303,6 +611,168 @@ public abstract class AbstractHBaseDAO<K, V> {
         }
     }
 
+    /**
+     * Runs a call to HBase on the call executor, or on the calling thread if there is none, and reports its
+     * latency, which includes the time the call waited in the executor queue.
+     *
+     * @param call The call.
+     * @param <T> The call result type.
+     * @return The call result.
+     * @throws IOException In case of errors calling HBase, if the call timed out or if interrupted while waiting
+     *      for the call.
+     */
+    private <T> T call(final HBaseCall<T> call) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            final ExecutorService executor = callExecutor;
+            return executor == null ? callWithTables(call)
+                    : await(executor.submit(() -> callWithTables(call)), callTimeoutMillis);
+        } finally {
+            final LatencyListener listener = latencyListener;
+            if (listener != null) {
+                listener.onCall(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Runs a call on tables of its own if there is a connection, closing them afterwards, or on the tables given at
+     * creation otherwise.
+     *
+     * @param call The call.
+     * @param <T> The call result type.
+     * @return The call result.
+     * @throws IOException In case of errors calling HBase.
+     */
+    private <T> T callWithTables(final HBaseCall<T> call) throws IOException {
+        final Connection connection = callConnection;
+        if (connection == null) {
+            return call.call(table, reverseIndex, countersTable);
+        }
+        try (final Table callTable = connection.getTable(table.getName());
+             final Table callReverseIndex = reverseIndex == null ? null : connection.getTable(reverseIndex.getName());
+             final Table callCountersTable = countersTable == null ? null
+                     : connection.getTable(countersTable.getName())) {
+            return call.call(callTable, callReverseIndex, callCountersTable);
+        }
+    }
+
+    /**
+     * Waits for a call running on the call executor, rethrowing its errors. The call is cancelled if it does not
+     * finish in time or the caller is interrupted.
+     *
+     * @param future The call future.
+     * @param timeoutMillis The time to wait for the call.
+     * @param <T> The call result type.
+     * @return The call result.
+     * @throws IOException In case of errors calling HBase, if the call timed out or if interrupted while waiting.
+     */
+    private static <T> T await(final Future<T> future, final long timeoutMillis) throws IOException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("HBase call not finished in " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for HBase");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Error calling HBase", cause);
+        }
+    }
+
+    /**
+     * Locks the rows of the puts if there is a mutation listener. The locks are taken in stripe order, so writers
+     * of overlapping rows cannot deadlock.
+     *
+     * @param puts The puts about to be written.
+     * @return The taken locks, empty if there is no mutation listener.
+     */
+    private List<Lock> lockRows(final List<Put> puts) {
+        if (mutationListener == null) {
+            return Collections.emptyList();
+        }
+        final List<ByteBuffer> rows = new ArrayList<>(puts.size());
+        for (final Put put : puts) {
+            rows.add(ByteBuffer.wrap(put.getRow()));
+        }
+        final List<Lock> locks = new ArrayList<>(puts.size());
+        for (final Lock lock : rowLocks.bulkGet(rows)) {
+            lock.lock();
+            locks.add(lock);
+        }
+        return locks;
+    }
+
+    private static void unlockRows(final List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Prefixes the row key with its salt byte. If salting is disabled the same row key is returned.
+     *
+     * @param rowKey The original row key.
+     * @return The salted row key.
+     */
+    protected final byte[] saltRowKey(final byte[] rowKey) {
+        if (saltBuckets == 1) {
+            return rowKey;
+        }
+        final byte[] saltedRowKey = new byte[rowKey.length + 1];
+        saltedRowKey[0] = (byte) ((Bytes.hashCode(rowKey) & Integer.MAX_VALUE) % saltBuckets);
+        System.arraycopy(rowKey, 0, saltedRowKey, 1, rowKey.length);
+        return saltedRowKey;
+    }
+
+    /**
+     * Removes the salt byte from a row key read from the table, useful in {@link #createObject(Result)}
+     * implementations that decode the row key. If salting is disabled the same row key is returned.
+     *
+     * @param rowKey The row key as stored in the table.
+     * @return The original row key.
+     */
+    protected final byte[] unsaltRowKey(final byte[] rowKey) {
+        return saltBuckets == 1 ? rowKey : Arrays.copyOfRange(rowKey, 1, rowKey.length);
+    }
+
+    /**
+     * Copies the <code>Put</code> created by the implementation into a new one using the salted row key. The
+     * attributes are copied too, they carry the TTL, ACL, cell visibility and cluster ids of the mutation.
+     *
+     * @param put The put with the original row key.
+     * @return The put with the salted row key, the same put if salting is disabled.
+     */
+    private Put saltPut(final Put put) {
+        if (saltBuckets == 1 || put == null) {
+            return put;
+        }
+        final Put saltedPut = new Put(saltRowKey(put.getRow()), put.getTimeStamp());
+        for (final List<Cell> cells : put.getFamilyCellMap().values()) {
+            for (final Cell cell : cells) {
+                saltedPut.addColumn(CellUtil.cloneFamily(cell), CellUtil.cloneQualifier(cell), cell.getTimestamp(),
+                        CellUtil.cloneValue(cell));
+            }
+        }
+        for (final Map.Entry<String, byte[]> attribute : put.getAttributesMap().entrySet()) {
+            saltedPut.setAttribute(attribute.getKey(), attribute.getValue());
+        }
+        saltedPut.setDurability(put.getDurability());
+        return saltedPut;
+    }
+
     /**
      * This method creates a <code>Put</code> used as reverse index for backward scans.
      *
@@ -377,4 +847,13 @@ public abstract class AbstractHBaseDAO<K, V> {
      */
     protected abstract PrefixFilter createPrefixFilter(K rowKey);
 
+    /**
+     * A call to HBase, run through {@link #call(HBaseCall)} on the tables it is given.
+     *
+     * @param <T> The call result type.
+     */
+    @FunctionalInterface
+    private interface HBaseCall<T> {
+        T call(Table table, Table reverseIndex, Table countersTable) throws IOException;
+    }
 }
@@ -16,6 +16,15 @@ import java.io.IOException;
  */
 public class GameDao extends AbstractHBaseDAO<Game.Key, Game> {
     private static final Logger LOGGER = LoggerFactory.getLogger(GameDao.class);
+    private static final byte[] INFO_FAMILY = Bytes.toBytes("info");
+    private static final byte[] BRAND_COLUMN = Bytes.toBytes("brand");
+    private static final byte[] GAME_ID_COLUMN = Bytes.toBytes("gameId");
+    private static final byte[] NAME_COLUMN = Bytes.toBytes("name");
+    private static final byte[] CONSOLE_COLUMN = Bytes.toBytes("console");
+    private static final byte[] USD_COLUMN = Bytes.toBytes("usd");
+    private static final byte[] MXN_COLUMN = Bytes.toBytes("mxn");
+    /** Ends the brand in the row key, sorts before any brand character so shorter brands come first. */
+    private static final byte BRAND_SEPARATOR = 0x00;
 
     public GameDao(final Table table, final Table reverseIndex, final Table countersTable) {
         super(table, reverseIndex, countersTable);
@@ -27,23 +36,41 @@ public class GameDao extends AbstractHBaseDAO<Game.Key, Game> {
 
     @Override
     protected Put createPut(Game object) throws IOException {
-        return null;
+        final Put put = new Put(createRowKeyFromObject(object));
+        addColumn(put, BRAND_COLUMN, object.getBrand());
+        put.addColumn(INFO_FAMILY, GAME_ID_COLUMN, Bytes.toBytes(object.getGameId()));
+        addColumn(put, NAME_COLUMN, object.getName());
+        addColumn(put, CONSOLE_COLUMN, object.getConsole());
+        addColumn(put, USD_COLUMN, object.getUsd());
+        addColumn(put, MXN_COLUMN, object.getMxn());
+        return put;
+    }
+
+    private static void addColumn(final Put put, final byte[] column, final String value) {
+        if (value != null) {
+            put.addColumn(INFO_FAMILY, column, Bytes.toBytes(value));
+        }
     }
 
+    /**
+     * The row key is the UTF-8 brand, a 0x00 separator and the game id as 8 big-endian bytes with the sign bit
+     * flipped. The separator keeps brands that prefix each other apart, and the fixed width id sorts the games of
+     * a brand in numeric order, negative ids first.
+     */
     @Override
     protected byte[] createRowKey(Game.Key rowKey) {
         LOGGER.debug("Creating row key for brand {} and gameId {}", rowKey.getBrand(), rowKey.getGameId());
-//        final int brandByteLength = rowKey.getBrand().getBytes().length;
-//        final byte[] rowKeyArray = new byte[brandByteLength + Long.BYTES];
-//        System.arraycopy(Bytes.toBytes(rowKey.getBrand()), 0, rowKeyArray, 0, brandByteLength);
-//        System.arraycopy(Bytes.toBytes(rowKey.getGameId()), 0, rowKeyArray, brandByteLength, Long.BYTES);
-        final byte[] rowKeyArray = Bytes.toBytes(rowKey.getBrand() + rowKey.getGameId());
+        final byte[] brand = Bytes.toBytes(rowKey.getBrand());
+        final byte[] rowKeyArray = new byte[brand.length + 1 + Long.BYTES];
+        System.arraycopy(brand, 0, rowKeyArray, 0, brand.length);
+        rowKeyArray[brand.length] = BRAND_SEPARATOR;
+        Bytes.putLong(rowKeyArray, brand.length + 1, rowKey.getGameId() ^ Long.MIN_VALUE);
         return rowKeyArray;
     }
 
     @Override
     protected byte[] createRowKeyFromObject(Game object) {
-        return new byte[0];
+        return createRowKey(object.getKey());
     }
 
     @Override
@@ -59,7 +86,15 @@ public class GameDao extends AbstractHBaseDAO<Game.Key, Game> {
     @Override
     protected Game createObject(Result row) {
         final Game game = new Game();
-        game.setName(Bytes.toString(row.getValue(Bytes.toBytes("info"), Bytes.toBytes("name"))));
+        game.setBrand(Bytes.toString(row.getValue(INFO_FAMILY, BRAND_COLUMN)));
+        final byte[] gameId = row.getValue(INFO_FAMILY, GAME_ID_COLUMN);
+        if (gameId != null) {
+            game.setGameId(Bytes.toLong(gameId));
+        }
+        game.setName(Bytes.toString(row.getValue(INFO_FAMILY, NAME_COLUMN)));
+        game.setConsole(Bytes.toString(row.getValue(INFO_FAMILY, CONSOLE_COLUMN)));
+        game.setUsd(Bytes.toString(row.getValue(INFO_FAMILY, USD_COLUMN)));
+        game.setMxn(Bytes.toString(row.getValue(INFO_FAMILY, MXN_COLUMN)));
         return game;
     }
 
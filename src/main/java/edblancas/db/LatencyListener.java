@@ -0,0 +1,16 @@
+package edblancas.db;
+
+/**
+ * Receives the latency of the calls made through an {@link AbstractHBaseDAO}.
+ */
+@FunctionalInterface
+public interface LatencyListener {
+
+    /**
+     * Called after every call, successful, failed or timed out. Must not block, it runs on the calling thread.
+     *
+     * @param nanos The call latency in nanoseconds as seen by the caller, including the time the call waited in
+     *      the queue of the call executor, if there is one.
+     */
+    void onCall(long nanos);
+}
@@ -0,0 +1,21 @@
+package edblancas.db;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the objects written through an {@link AbstractHBaseDAO}, after they are stored in HBase.
+ *
+ * @param <V> Type of the written objects.
+ */
+@FunctionalInterface
+public interface MutationListener<V> {
+
+    /**
+     * Called after the objects are stored, in the order they were written.
+     *
+     * @param objects The written objects.
+     * @throws IOException In case the mutation cannot be processed, the error is propagated to the writer.
+     */
+    void onPut(List<V> objects) throws IOException;
+}
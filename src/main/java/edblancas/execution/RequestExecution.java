@@ -0,0 +1,97 @@
+package edblancas.execution;
+
+import com.codahale.metrics.InstrumentedExecutorService;
+import io.dropwizard.lifecycle.ExecutorServiceManager;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads used to run the blocking resource methods.
+ */
+public enum RequestExecution {
+    /**
+     * Resource methods run on the Jetty request thread, the response is resumed before the method returns. The HBase
+     * calls run on the request thread too, unless call threads are configured.
+     */
+    PLATFORM {
+        @Override
+        public Executor build(final Environment environment) {
+            return Runnable::run;
+        }
+
+        @Override
+        public int callThreads(final int configured) {
+            return configured;
+        }
+    },
+    /**
+     * Resource methods run on a new virtual thread each, the Jetty thread is released while HBase is queried.
+     * The HBase client waits inside <code>synchronized</code> blocks, which pin the virtual threads to their carriers,
+     * so the HBase calls always run on a pool of platform threads, {@value #DEFAULT_CALL_THREADS} unless configured.
+     * Adds the <code>virtual-threads.*</code> metrics to compare with the platform execution.
+     */
+    VIRTUAL {
+        @Override
+        public Executor build(final Environment environment) {
+            final ExecutorService executor = new InstrumentedExecutorService(
+                    Executors.newVirtualThreadPerTaskExecutor(), environment.metrics(), "virtual-threads.requests");
+            environment.lifecycle().manage(
+                    new ExecutorServiceManager(executor, Duration.seconds(5), "virtual-threads"));
+            environment.lifecycle().manage(new VirtualThreadMetrics(environment.metrics(),
+                    environment.lifecycle().scheduledExecutorService("virtual-threads-metrics-%d").build()));
+            return executor;
+        }
+
+        @Override
+        public int callThreads(final int configured) {
+            return configured > 0 ? configured : DEFAULT_CALL_THREADS;
+        }
+    };
+
+    /** HBase call threads used with virtual threads if none are configured. */
+    public static final int DEFAULT_CALL_THREADS = 64;
+    /** HBase calls waiting for a call thread, per thread. */
+    private static final int QUEUED_CALLS_PER_THREAD = 4;
+
+    /**
+     * Creates the executor for the resource methods.
+     *
+     * @param environment The application environment, used to manage the executor and register its metrics.
+     * @return The executor.
+     */
+    public abstract Executor build(Environment environment);
+
+    /**
+     * Returns the number of platform threads the HBase calls run on.
+     *
+     * @param configured The configured call threads, 0 if none.
+     * @return The call threads, 0 to run the calls on the thread executing the resource method.
+     */
+    public abstract int callThreads(int configured);
+
+    /**
+     * Creates the executor for the HBase calls, a fixed pool of platform threads managed by the environment. The
+     * queue holds {@value #QUEUED_CALLS_PER_THREAD} calls per thread, further calls are rejected with a
+     * <code>RejectedExecutionException</code> instead of piling up behind an HBase slowdown.
+     *
+     * @param environment The application environment.
+     * @param configured The configured call threads, 0 if none.
+     * @return The executor, null if the calls run on the thread executing the resource method.
+     */
+    public ExecutorService buildCallExecutor(final Environment environment, final int configured) {
+        final int threads = callThreads(configured);
+        if (threads <= 0) {
+            return null;
+        }
+        return environment.lifecycle().executorService("hbase-call-%d")
+                .minThreads(threads)
+                .maxThreads(threads)
+                .workQueue(new ArrayBlockingQueue<>(threads * QUEUED_CALLS_PER_THREAD))
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package edblancas.execution;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.dropwizard.lifecycle.Managed;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the virtual thread scheduler:
+ * <ul>
+ *     <li><code>virtual-threads.carrier.parallelism</code>: number of carrier threads.</li>
+ *     <li><code>virtual-threads.carrier.utilization</code>: CPU time used by the carrier threads over the last
+ *     sample period, divided by the available carrier time.</li>
+ *     <li><code>virtual-threads.pinned</code>: virtual threads that blocked while pinned to their carrier, for example
+ *     inside a <code>synchronized</code> block of the HBase client, recorded from the JFR events.</li>
+ * </ul>
+ */
+public class VirtualThreadMetrics implements Managed {
+    private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+    private static final long SAMPLE_PERIOD_SECONDS = 5;
+    private final MetricRegistry metrics;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final int parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+            Runtime.getRuntime().availableProcessors());
+    private RecordingStream pinnedEvents;
+    private volatile double utilization;
+    private long lastCpuNanos;
+    private long lastSampleNanos;
+
+    public VirtualThreadMetrics(final MetricRegistry metrics, final ScheduledExecutorService scheduler) {
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void start() {
+        metrics.register("virtual-threads.carrier.parallelism", (Gauge<Integer>) () -> parallelism);
+        metrics.register("virtual-threads.carrier.utilization", (Gauge<Double>) () -> utilization);
+        final Timer pinned = metrics.timer("virtual-threads.pinned");
+        pinnedEvents = new RecordingStream();
+        pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1));
+        pinnedEvents.onEvent("jdk.VirtualThreadPinned",
+                event -> pinned.update(event.getDuration().toNanos(), TimeUnit.NANOSECONDS));
+        pinnedEvents.startAsync();
+        lastCpuNanos = carrierCpuNanos();
+        lastSampleNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::sample, SAMPLE_PERIOD_SECONDS, SAMPLE_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (pinnedEvents != null) {
+            pinnedEvents.close();
+        }
+    }
+
+    private void sample() {
+        final long cpuNanos = carrierCpuNanos();
+        final long now = System.nanoTime();
+        utilization = Math.max(0, cpuNanos - lastCpuNanos) / ((now - lastSampleNanos) * (double) parallelism);
+        lastCpuNanos = cpuNanos;
+        lastSampleNanos = now;
+    }
+
+    /**
+     * Adds the CPU time of the live carrier threads. Carriers that exit between samples are not counted, which can
+     * only make the utilization look lower for that period.
+     */
+    private long carrierCpuNanos() {
+        long total = 0;
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (CARRIER_THREAD_CLASS.equals(thread.getClass().getName())) {
+                total += Math.max(0, threads.getThreadCpuTime(thread.threadId()));
+            }
+        }
+        return total;
+    }
+}
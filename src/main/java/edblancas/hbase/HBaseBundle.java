@@ -0,0 +1,77 @@
+package edblancas.hbase;
+
+import io.dropwizard.ConfiguredBundle;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.Table;
+
+import java.io.IOException;
+
+/**
+ * Opens the HBase connection of the application and closes it when the application stops. The connection is
+ * thread safe and shared, the tables taken from it are not.
+ *
+ * @param <T> The application configuration type.
+ */
+public abstract class HBaseBundle<T extends io.dropwizard.Configuration> implements ConfiguredBundle<T> {
+    private volatile Connection connection;
+
+    @Override
+    public void run(final T configuration, final Environment environment) throws Exception {
+        final HBaseBundleConfiguration hbase = getHBaseBundleConfiguration(configuration);
+        final Configuration conf = HBaseConfiguration.create();
+        conf.set(HConstants.ZOOKEEPER_QUORUM, hbase.getZookeeperQuorum());
+        conf.setInt(HConstants.ZOOKEEPER_CLIENT_PORT, hbase.getZookeeperPort());
+        conf.set(HConstants.ZOOKEEPER_ZNODE_PARENT, hbase.getZookeeperZNode());
+        final Connection created = ConnectionFactory.createConnection(conf);
+        connection = created;
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() throws IOException {
+                created.close();
+            }
+        });
+    }
+
+    /**
+     * Gets the HBase configuration out of the application configuration.
+     *
+     * @param configuration The application configuration.
+     * @return The HBase configuration.
+     */
+    protected abstract HBaseBundleConfiguration getHBaseBundleConfiguration(T configuration);
+
+    /**
+     * Gets the connection opened by {@link #run}.
+     *
+     * @return The shared HBase connection.
+     */
+    public Connection getConnection() {
+        final Connection current = connection;
+        if (current == null) {
+            throw new IllegalStateException("The HBase bundle has not been run");
+        }
+        return current;
+    }
+
+    /**
+     * Gets a table from the shared connection. Tables are not thread safe, callers own the instance.
+     *
+     * @param name The table name.
+     * @return The table.
+     * @throws IOException In case the table cannot be obtained.
+     */
+    public Table getTable(final String name) throws IOException {
+        return getConnection().getTable(TableName.valueOf(name));
+    }
+}
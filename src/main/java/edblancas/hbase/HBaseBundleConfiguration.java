@@ -0,0 +1,52 @@
+package edblancas.hbase;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * Location of the ZooKeeper ensemble of the HBase cluster.
+ */
+public class HBaseBundleConfiguration {
+    @NotEmpty
+    private String zookeeperQuorum = "localhost";
+
+    @Min(1)
+    @Max(65535)
+    private int zookeeperPort = 2181;
+
+    @NotEmpty
+    private String zookeeperZNode = "/hbase";
+
+    @JsonProperty
+    public String getZookeeperQuorum() {
+        return zookeeperQuorum;
+    }
+
+    @JsonProperty
+    public void setZookeeperQuorum(final String zookeeperQuorum) {
+        this.zookeeperQuorum = zookeeperQuorum;
+    }
+
+    @JsonProperty
+    public int getZookeeperPort() {
+        return zookeeperPort;
+    }
+
+    @JsonProperty
+    public void setZookeeperPort(final int zookeeperPort) {
+        this.zookeeperPort = zookeeperPort;
+    }
+
+    @JsonProperty
+    public String getZookeeperZNode() {
+        return zookeeperZNode;
+    }
+
+    @JsonProperty
+    public void setZookeeperZNode(final String zookeeperZNode) {
+        this.zookeeperZNode = zookeeperZNode;
+    }
+}
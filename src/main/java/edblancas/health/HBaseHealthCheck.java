@@ -0,0 +1,105 @@
+package edblancas.health;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.health.HealthCheck;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks HBase from a background thread and answers from the last probe, so a <code>/healthcheck</code> hit never
+ * waits on HBase. Each probe checks whether a sentinel row exists in every table, which is a cheap read, and
+ * records its latency in a per table histogram over a sliding window. The check is unhealthy if the last probe of
+ * any table failed, if no probe completed recently or if the p99 of the window exceeds the latency SLO. Every
+ * table is probed even if another one failed, and the status lists them all.
+ * <p>
+ * The p99 is only meaningful with enough samples in the window: with less than 100 it is the slowest probe, so a
+ * single slow read marks the check unhealthy until it leaves the window. The status shows the samples of each table.
+ */
+public class HBaseHealthCheck extends HealthCheck implements Managed {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseHealthCheck.class);
+    /** Probes missed before the cached status is considered stale. */
+    private static final int STALE_PROBES = 3;
+    private final List<Table> tables;
+    private final List<Histogram> latencies;
+    private final byte[] sentinelRow;
+    private final long probeIntervalMillis;
+    private final double latencySloMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile Result lastResult = Result.unhealthy("no probe completed yet");
+    private volatile long lastProbe;
+
+    public HBaseHealthCheck(final List<Table> tables, final String sentinelRow, final long probeIntervalMillis,
+                            final long latencySloMillis, final long windowMillis,
+                            final ScheduledExecutorService scheduler, final MetricRegistry metrics) {
+        this.tables = tables;
+        this.sentinelRow = Bytes.toBytes(sentinelRow);
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.latencySloMillis = latencySloMillis;
+        this.scheduler = scheduler;
+        this.latencies = new ArrayList<>(tables.size());
+        for (final Table table : tables) {
+            latencies.add(metrics.register("hbase.health." + table.getName().getNameAsString() + ".probe-latency-us",
+                    new Histogram(new SlidingTimeWindowReservoir(windowMillis, TimeUnit.MILLISECONDS))));
+        }
+    }
+
+    @Override
+    public void start() {
+        lastProbe = System.currentTimeMillis();
+        scheduler.scheduleWithFixedDelay(this::probe, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        // The scheduler is stopped by its own manager.
+    }
+
+    @Override
+    protected Result check() {
+        final long sinceLastProbe = System.currentTimeMillis() - lastProbe;
+        if (sinceLastProbe > STALE_PROBES * probeIntervalMillis) {
+            return Result.unhealthy("no probe completed in %dms", sinceLastProbe);
+        }
+        return lastResult;
+    }
+
+    private void probe() {
+        final StringBuilder status = new StringBuilder();
+        boolean healthy = true;
+        for (int i = 0; i < tables.size(); i++) {
+            final Table table = tables.get(i);
+            final Histogram latency = latencies.get(i);
+            final long start = System.nanoTime();
+            try {
+                table.exists(new Get(sentinelRow));
+            } catch (Exception e) {
+                LOGGER.warn("HBase probe of {} failed", table.getName(), e);
+                healthy = false;
+                status.append(String.format("%s failed: %s, ", table.getName(), e.getMessage()));
+                continue;
+            }
+            latency.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            final Snapshot snapshot = latency.getSnapshot();
+            final double p99Millis = snapshot.get99thPercentile() / 1_000;
+            if (p99Millis > latencySloMillis) {
+                healthy = false;
+            }
+            status.append(String.format("%s p99=%.1fms n=%d, ", table.getName(), p99Millis, snapshot.size()));
+        }
+        status.append(String.format("(SLO %.0fms)", latencySloMillis));
+        lastResult = healthy ? Result.healthy(status.toString()) : Result.unhealthy(status.toString());
+        lastProbe = System.currentTimeMillis();
+    }
+}
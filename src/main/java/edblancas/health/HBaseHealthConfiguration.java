@@ -0,0 +1,106 @@
+package edblancas.health;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import org.apache.hadoop.hbase.client.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration of the background HBase health check. The window should hold at least 100 probes, otherwise its
+ * p99 is just the slowest probe; the defaults keep 300.
+ */
+public class HBaseHealthConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseHealthConfiguration.class);
+    /** Probes per window below which the p99 is the maximum latency. */
+    private static final long MIN_WINDOW_PROBES = 100;
+    @NotNull
+    private List<String> tables = Collections.singletonList("games");
+
+    @NotEmpty
+    private String sentinelRow = "__healthcheck__";
+
+    @NotNull
+    private Duration probeInterval = Duration.seconds(1);
+
+    @NotNull
+    private Duration latencySlo = Duration.milliseconds(50);
+
+    @NotNull
+    private Duration window = Duration.minutes(5);
+
+    /**
+     * Creates the health check, registers it and adds it to the application lifecycle.
+     *
+     * @param environment The application environment.
+     * @param probedTables The tables named in {@link #getTables()}.
+     */
+    public void register(final Environment environment, final List<Table> probedTables) {
+        final long windowProbes = window.toMilliseconds() / Math.max(1, probeInterval.toMilliseconds());
+        if (windowProbes < MIN_WINDOW_PROBES) {
+            LOGGER.warn("The HBase health window holds only {} probes, its p99 is the slowest probe. "
+                    + "Shorten the probe interval or widen the window.", windowProbes);
+        }
+        final HBaseHealthCheck healthCheck = new HBaseHealthCheck(probedTables, sentinelRow,
+                probeInterval.toMilliseconds(), latencySlo.toMilliseconds(), window.toMilliseconds(),
+                environment.lifecycle().scheduledExecutorService("hbase-health-%d").build(), environment.metrics());
+        environment.lifecycle().manage(healthCheck);
+        environment.healthChecks().register("hbase", healthCheck);
+    }
+
+    @JsonProperty
+    public List<String> getTables() {
+        return tables;
+    }
+
+    @JsonProperty
+    public void setTables(final List<String> tables) {
+        this.tables = tables;
+    }
+
+    @JsonProperty
+    public String getSentinelRow() {
+        return sentinelRow;
+    }
+
+    @JsonProperty
+    public void setSentinelRow(final String sentinelRow) {
+        this.sentinelRow = sentinelRow;
+    }
+
+    @JsonProperty
+    public Duration getProbeInterval() {
+        return probeInterval;
+    }
+
+    @JsonProperty
+    public void setProbeInterval(final Duration probeInterval) {
+        this.probeInterval = probeInterval;
+    }
+
+    @JsonProperty
+    public Duration getLatencySlo() {
+        return latencySlo;
+    }
+
+    @JsonProperty
+    public void setLatencySlo(final Duration latencySlo) {
+        this.latencySlo = latencySlo;
+    }
+
+    @JsonProperty
+    public Duration getWindow() {
+        return window;
+    }
+
+    @JsonProperty
+    public void setWindow(final Duration window) {
+        this.window = window;
+    }
+}
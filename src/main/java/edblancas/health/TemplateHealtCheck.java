@@ -1,7 +1,6 @@
 package edblancas.health;
 
 import com.codahale.metrics.health.HealthCheck;
-import com.sun.org.apache.regexp.internal.RE;
 
 /**
  * Created by dan on 15/06/17.
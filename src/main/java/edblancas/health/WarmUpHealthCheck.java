@@ -0,0 +1,26 @@
+package edblancas.health;
+
+import com.codahale.metrics.health.HealthCheck;
+import edblancas.warmup.WarmUp;
+
+/**
+ * Readiness check, unhealthy while the application is warming up so the load balancer does not send traffic yet.
+ */
+public class WarmUpHealthCheck extends HealthCheck {
+    private final WarmUp warmUp;
+
+    public WarmUpHealthCheck(final WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    protected Result check() throws Exception {
+        if (warmUp.isCompleted()) {
+            return Result.healthy();
+        }
+        if (warmUp.isTimedOut()) {
+            return Result.healthy("warm-up timed out");
+        }
+        return Result.unhealthy("warming up");
+    }
+}
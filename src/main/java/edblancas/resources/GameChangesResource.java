@@ -0,0 +1,201 @@
+package edblancas.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edblancas.api.Change;
+import edblancas.changes.ChangeLog;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the game updates recorded in the change log, so consumers can keep incremental replicas without
+ * scanning the games table. Consumers remember the last sequence they processed and ask for the changes after it,
+ * either long-polling with JSON or keeping a server-sent events stream open.
+ * <p>
+ * If the changes after the sequence are no longer in the log, or the sequence is newer than the log, the answer is
+ * <code>410 Gone</code> with a {@link Change.Type#RESET} change: the consumer must reload its replica and continue
+ * after the reset sequence. The log itself holds resets too, appended after games were written without going
+ * through it, like by the catalog import; they are returned among the changes.
+ * <p>
+ * Waiting polls do not hold a thread, and the streams run on a bounded executor, so the consumers cannot exhaust the
+ * Jetty threads.
+ */
+@Path("/game/_changes")
+public class GameChangesResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameChangesResource.class);
+    /** Maximum number of changes returned by a single poll. */
+    private static final int MAX_LIMIT = 1_000;
+    /** Time given to a poll to answer after its wait elapsed, before Jersey answers 503. */
+    private static final long RESUME_GRACE_MILLIS = 5_000;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private final ChangeLog changeLog;
+    private final ObjectMapper objectMapper;
+    private final long maxWaitMillis;
+    private final long maxStreamMillis;
+    /** Answers the polls once their wait ends. */
+    private final ExecutorService pollExecutor;
+    /** Runs the event streams, rejecting new ones when all its threads are streaming. */
+    private final ExecutorService streamExecutor;
+
+    public GameChangesResource(final ChangeLog changeLog, final ObjectMapper objectMapper, final long maxWaitMillis,
+                               final long maxStreamMillis, final ExecutorService pollExecutor,
+                               final ExecutorService streamExecutor) {
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxStreamMillis = maxStreamMillis;
+        this.pollExecutor = pollExecutor;
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * Returns the changes after the given sequence, waiting up to the configured time if there are none yet.
+     *
+     * @param since The last sequence processed by the consumer.
+     * @param limit The maximum number of changes to return.
+     * @param asyncResponse The response, resumed with the changes, empty if none arrived before the wait elapsed.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getChanges(@QueryParam("since") @DefaultValue("0") final long since,
+                           @QueryParam("limit") @DefaultValue("1000") final int limit,
+                           @Suspended final AsyncResponse asyncResponse) {
+        asyncResponse.setTimeout(maxWaitMillis + RESUME_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        final int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        changeLog.after(since)
+                .completeOnTimeout(since, maxWaitMillis, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((last, error) -> {
+                    try {
+                        asyncResponse.resume(poll(since, max));
+                    } catch (Throwable t) {
+                        asyncResponse.resume(t);
+                    }
+                }, pollExecutor);
+    }
+
+    /**
+     * Streams the changes after the given sequence as server-sent events, the event id is the change sequence.
+     * The stream is closed after the configured duration, clients reconnect sending the <code>Last-Event-ID</code>
+     * header to resume. If the client falls behind the retained changes a <code>reset</code> event is sent and the
+     * stream closed. When all the stream threads are busy the answer is <code>503</code>.
+     *
+     * @param since The last sequence processed by the consumer.
+     * @param lastEventId The last event received by a reconnecting client, takes precedence over since.
+     * @param asyncResponse The response, resumed with the event stream.
+     */
+    @GET
+    @Produces("text/event-stream")
+    public void streamChanges(@QueryParam("since") @DefaultValue("0") final long since,
+                              @HeaderParam("Last-Event-ID") final Long lastEventId,
+                              @Suspended final AsyncResponse asyncResponse) {
+        final long from = lastEventId != null ? lastEventId : since;
+        if (!changeLog.isReadable(from)) {
+            asyncResponse.resume(gone());
+            return;
+        }
+        try {
+            // Jersey writes the stream on the thread resuming the response.
+            streamExecutor.execute(() -> asyncResponse.resume(Response.ok(stream(from)).build()));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Change stream rejected, all the stream threads are busy.");
+            asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+
+    private Response poll(final long since, final int max) {
+        final List<ChangeLog.Entry> entries = changeLog.read(since, max);
+        if (entries == null) {
+            return gone();
+        }
+        return Response.ok(toChanges(entries), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    private StreamingOutput stream(final long since) {
+        return output -> {
+            long sequence = since;
+            final long deadline = System.currentTimeMillis() + maxStreamMillis;
+            while (System.currentTimeMillis() < deadline) {
+                if (!await(sequence)) {
+                    output.write(HEARTBEAT);
+                } else {
+                    final List<ChangeLog.Entry> entries = changeLog.read(sequence, MAX_LIMIT);
+                    if (entries == null) {
+                        writeEvent(output, "reset", reset());
+                        output.flush();
+                        return;
+                    }
+                    for (final Change change : toChanges(entries)) {
+                        writeEvent(output, change.getType() == Change.Type.RESET ? "reset" : null, change);
+                        sequence = change.getSequence();
+                    }
+                }
+                output.flush();
+            }
+        };
+    }
+
+    private boolean await(final long sequence) throws IOException {
+        try {
+            return changeLog.await(sequence, maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for changes");
+        }
+    }
+
+    private void writeEvent(final OutputStream output, final String event, final Change change) throws IOException {
+        if (event != null) {
+            output.write(("event: " + event + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        output.write(("id: " + change.getSequence() + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        output.write(objectMapper.writeValueAsBytes(change));
+        output.write('\n');
+        output.write('\n');
+    }
+
+    private Response gone() {
+        return Response.status(Response.Status.GONE).type(MediaType.APPLICATION_JSON_TYPE).entity(reset()).build();
+    }
+
+    /**
+     * @return A reset change at the last sequence, the consumer continues after it once its replica is reloaded.
+     */
+    private Change reset() {
+        return new Change(changeLog.getLastSequence(), System.currentTimeMillis(), Change.Type.RESET, null);
+    }
+
+    private List<Change> toChanges(final List<ChangeLog.Entry> entries) {
+        final List<Change> changes = new ArrayList<>(entries.size());
+        for (final ChangeLog.Entry entry : entries) {
+            if (entry.isReset()) {
+                changes.add(new Change(entry.getSequence(), entry.getTimestamp(), Change.Type.RESET, null));
+            } else {
+                changes.add(new Change(entry.getSequence(), entry.getTimestamp(),
+                        new String(entry.getPayload(), StandardCharsets.UTF_8)));
+            }
+        }
+        return changes;
+    }
+}
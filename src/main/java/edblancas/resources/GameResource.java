@@ -1,5 +1,7 @@
 package edblancas.resources;
 
+import edblancas.admission.AdmissionControlFilter;
+import edblancas.admission.AdmissionControlled;
 import edblancas.api.Game;
 import edblancas.db.GameDao;
 
@@ -11,31 +13,77 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by dan on 20/06/17.
  */
 @Path("/game")
+@AdmissionControlled
 public class GameResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(GameResource.class);
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
     private final GameDao gameDao;
+    /** Executor running the HBase queries, see {@link edblancas.execution.RequestExecution}. */
+    private final Executor executor;
+    /** Time after which a request not yet answered gets a 503. */
+    private final long timeoutMillis;
 
     public GameResource(GameDao gameDao) {
+        this(gameDao, Runnable::run, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public GameResource(final GameDao gameDao, final Executor executor, final long timeoutMillis) {
         this.gameDao = gameDao;
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
     }
 
     @GET
     @Path("/{brand}/{gameId}")
     @Consumes({"application/json", "application/xml"})
     @Produces({"application/json", "application/xml"})
-    public Response getGameByBrandAndGameId(@PathParam("brand") final String brand,
-                                            @PathParam("gameId") final Long gameId) {
+    public void getGameByBrandAndGameId(@PathParam("brand") final String brand,
+                                        @PathParam("gameId") final Long gameId,
+                                        @Context final ContainerRequestContext request,
+                                        @Suspended final AsyncResponse asyncResponse) {
+        asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        // Held until HBase answers, even if the request times out first.
+        final AdmissionControlFilter.Permit permit = AdmissionControlFilter.takePermit(request);
+        try {
+            executor.execute(() -> {
+                try {
+                    final Response response;
+                    try {
+                        response = findGame(brand, gameId);
+                    } finally {
+                        permit.release();
+                    }
+                    asyncResponse.resume(response);
+                } catch (Throwable t) {
+                    asyncResponse.resume(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            LOGGER.warn("Request rejected, the executor is shutting down.");
+            asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+
+    private Response findGame(final String brand, final Long gameId) {
         Response response;
         try {
             Game game = new Game(brand, gameId);
@@ -45,6 +93,9 @@ public class GameResource {
             } else {
                 response = Response.status(Response.Status.NOT_FOUND).entity(null).build();
             }
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Request rejected, too many HBase calls queued.");
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
         } catch (IOException e) {
             LOGGER.error("Error querying the provider.", e);
             response = Response.status(500).build();
@@ -0,0 +1,199 @@
+package edblancas.warmup;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import edblancas.api.Game;
+import edblancas.client.LocalEndpointClient;
+import edblancas.db.GameDao;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.lifecycle.ServerLifecycleListener;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the application up after a deploy, before the readiness health check lets traffic in:
+ * <ol>
+ *     <li>Locates all the regions of the configured tables, so the first requests do not pay the meta lookups.</li>
+ *     <li>Reads the configured hot keys through the {@link GameDao}, opening the connections, loading the HBase
+ *     block cache and compiling the DAO paths.</li>
+ *     <li>Once the server is started, sends synthetic requests through the HTTP endpoints to compile the Jersey and
+ *     Jackson paths. C2 only compiles a method after about 10,000 invocations, with fewer requests per endpoint the
+ *     paths are left interpreted or in C1 code and the phase only primes the caches. <code>/game</code> is only
+ *     requested if there are hot keys.</li>
+ * </ol>
+ * The warm-up runs in the background and ends when all the phases complete or the timeout elapses. Each phase is
+ * timed under <code>warmup.*</code>, and the latency of the synthetic requests is recorded so the first and last
+ * ones can be compared.
+ */
+public class WarmUp implements Managed, ServerLifecycleListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+    private final Connection connection;
+    private final List<TableName> tables;
+    private final GameDao gameDao;
+    private final List<Game.Key> hotKeys;
+    private final int syntheticRequests;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final Timer regionsTimer;
+    private final Timer keysTimer;
+    private final Timer requestsTimer;
+    private final Histogram requestLatency;
+    private final CountDownLatch serverStarted = new CountDownLatch(1);
+    private volatile Server server;
+    private volatile long deadline;
+    private volatile boolean completed;
+    private volatile long firstRequestMicros;
+    private volatile long lastRequestMicros;
+    private volatile int gameRequests;
+
+    public WarmUp(final Connection connection, final List<TableName> tables, final GameDao gameDao,
+                  final List<Game.Key> hotKeys, final int syntheticRequests, final long timeoutMillis,
+                  final ExecutorService executor, final MetricRegistry metrics) {
+        this.connection = connection;
+        this.tables = tables;
+        this.gameDao = gameDao;
+        this.hotKeys = hotKeys;
+        this.syntheticRequests = syntheticRequests;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+        this.regionsTimer = metrics.timer("warmup.regions");
+        this.keysTimer = metrics.timer("warmup.keys");
+        this.requestsTimer = metrics.timer("warmup.requests");
+        this.requestLatency = metrics.histogram("warmup.requests.latency-us");
+        metrics.register("warmup.completed", (Gauge<Boolean>) () -> completed);
+        metrics.register("warmup.requests.first-latency-us", (Gauge<Long>) () -> firstRequestMicros);
+        metrics.register("warmup.requests.last-latency-us", (Gauge<Long>) () -> lastRequestMicros);
+        metrics.register("warmup.requests.game", (Gauge<Integer>) () -> gameRequests);
+    }
+
+    @Override
+    public void start() {
+        deadline = System.currentTimeMillis() + timeoutMillis;
+        executor.execute(this::warmUp);
+    }
+
+    @Override
+    public void stop() {
+        // The executor is stopped by its own manager.
+    }
+
+    @Override
+    public void serverStarted(final Server server) {
+        this.server = server;
+        serverStarted.countDown();
+    }
+
+    /**
+     * @return True once the warm-up completed.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return True if the timeout elapsed before the warm-up completed.
+     */
+    public boolean isTimedOut() {
+        return !completed && System.currentTimeMillis() > deadline;
+    }
+
+    private void warmUp() {
+        try (final Timer.Context ignored = regionsTimer.time()) {
+            locateRegions();
+        }
+        try (final Timer.Context ignored = keysTimer.time()) {
+            readHotKeys();
+        }
+        try {
+            if (serverStarted.await(remainingMillis(), TimeUnit.MILLISECONDS)) {
+                try (final Timer.Context ignored = requestsTimer.time()) {
+                    sendRequests();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        completed = remainingMillis() > 0;
+        if (completed) {
+            LOGGER.info("Warm-up completed, {} synthetic requests to /game, latency went from {}us to {}us",
+                    gameRequests, firstRequestMicros, lastRequestMicros);
+        } else {
+            LOGGER.warn("Warm-up timed out after {}ms", timeoutMillis);
+        }
+    }
+
+    private void locateRegions() {
+        for (final TableName table : tables) {
+            if (remainingMillis() <= 0) {
+                return;
+            }
+            try (final RegionLocator locator = connection.getRegionLocator(table)) {
+                final List<HRegionLocation> locations = locator.getAllRegionLocations();
+                LOGGER.info("Located {} regions of {}", locations.size(), table);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot locate the regions of {}", table, e);
+            }
+        }
+    }
+
+    private void readHotKeys() {
+        int found = 0;
+        for (final Game.Key key : hotKeys) {
+            if (remainingMillis() <= 0) {
+                return;
+            }
+            try {
+                if (gameDao.get(key) != null) {
+                    found++;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read the hot key {}", key, e);
+            }
+        }
+        LOGGER.info("Read {} hot keys, {} found", hotKeys.size(), found);
+    }
+
+    private void sendRequests() {
+        final LocalEndpointClient client = LocalEndpointClient.forServer(server, true);
+        for (int i = 0; i < syntheticRequests && remainingMillis() > 0; i++) {
+            final String path;
+            if (hotKeys.isEmpty() || i % 2 == 0) {
+                path = "/hello-world?name=warm-up";
+            } else {
+                final Game.Key key = hotKeys.get(i % hotKeys.size());
+                path = "/game/" + key.getBrand() + "/" + key.getGameId();
+                gameRequests++;
+            }
+            final long start = System.nanoTime();
+            try {
+                client.get(path, "application/json");
+            } catch (IOException e) {
+                LOGGER.debug("Synthetic request to {} failed", path, e);
+            }
+            final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            requestLatency.update(micros);
+            if (i == 0) {
+                firstRequestMicros = micros;
+            }
+            lastRequestMicros = micros;
+        }
+    }
+
+    private long remainingMillis() {
+        return deadline - System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,159 @@
+package edblancas.warmup;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edblancas.api.Game;
+import edblancas.db.GameDao;
+import edblancas.health.WarmUpHealthCheck;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration of the startup warm-up.
+ */
+public class WarmUpConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpConfiguration.class);
+    private boolean enabled = true;
+
+    @NotNull
+    private List<String> tables = Collections.singletonList("games");
+
+    /** File with the hot keys, one <code>brand,gameId</code> per line, hottest first. Bad lines are skipped. */
+    private String keysFile;
+
+    @Min(0)
+    private int topKeys = 1_000;
+
+    /**
+     * Synthetic requests sent once the server started, half to <code>/hello-world</code> and half to
+     * <code>/game</code>. C2 compiles a method after about 10,000 invocations, the default sends 12,000 to each.
+     */
+    @Min(0)
+    private int syntheticRequests = 24_000;
+
+    @NotNull
+    private Duration timeout = Duration.minutes(5);
+
+    /**
+     * Creates the warm-up, adds it to the application lifecycle and registers its readiness health check.
+     *
+     * @param environment The application environment.
+     * @param connection The HBase connection used to locate the regions of {@link #getTables()}.
+     * @param gameDao The DAO used to read the hot keys.
+     * @throws IOException In case the keys file cannot be read.
+     */
+    public void register(final Environment environment, final Connection connection,
+                         final GameDao gameDao) throws IOException {
+        final List<TableName> tableNames = new ArrayList<>(tables.size());
+        for (final String table : tables) {
+            tableNames.add(TableName.valueOf(table));
+        }
+        final WarmUp warmUp = new WarmUp(connection, tableNames, gameDao, readKeys(), syntheticRequests,
+                timeout.toMilliseconds(), environment.lifecycle().executorService("warm-up-%d").build(),
+                environment.metrics());
+        environment.lifecycle().manage(warmUp);
+        environment.lifecycle().addServerLifecycleListener(warmUp);
+        environment.healthChecks().register("warm-up", new WarmUpHealthCheck(warmUp));
+    }
+
+    private List<Game.Key> readKeys() throws IOException {
+        final List<Game.Key> keys = new ArrayList<>();
+        if (keysFile != null) {
+            int skipped = 0;
+            for (final String line : Files.readAllLines(Paths.get(keysFile), StandardCharsets.UTF_8)) {
+                final int comma = line.lastIndexOf(',');
+                if (keys.size() >= topKeys) {
+                    break;
+                } else if (comma > 0) {
+                    try {
+                        keys.add(new Game.Key(line.substring(0, comma).trim(),
+                                Long.parseLong(line.substring(comma + 1).trim())));
+                    } catch (NumberFormatException e) {
+                        LOGGER.debug("Skipping hot key line with a bad game id: {}", line);
+                        skipped++;
+                    }
+                } else if (!line.trim().isEmpty()) {
+                    LOGGER.debug("Skipping hot key line without brand and game id: {}", line);
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                LOGGER.warn("Skipped {} bad lines of the hot keys file {}", skipped, keysFile);
+            }
+        }
+        return keys;
+    }
+
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public List<String> getTables() {
+        return tables;
+    }
+
+    @JsonProperty
+    public void setTables(final List<String> tables) {
+        this.tables = tables;
+    }
+
+    @JsonProperty
+    public String getKeysFile() {
+        return keysFile;
+    }
+
+    @JsonProperty
+    public void setKeysFile(final String keysFile) {
+        this.keysFile = keysFile;
+    }
+
+    @JsonProperty
+    public int getTopKeys() {
+        return topKeys;
+    }
+
+    @JsonProperty
+    public void setTopKeys(final int topKeys) {
+        this.topKeys = topKeys;
+    }
+
+    @JsonProperty
+    public int getSyntheticRequests() {
+        return syntheticRequests;
+    }
+
+    @JsonProperty
+    public void setSyntheticRequests(final int syntheticRequests) {
+        this.syntheticRequests = syntheticRequests;
+    }
+
+    @JsonProperty
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @JsonProperty
+    public void setTimeout(final Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,165 @@
+package edblancas.changes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeLogTest {
+    /** Header of a record, see the layout in {@link ChangeLog}. */
+    private static final int HEADER_SIZE = 25;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @TempDir
+    File directory;
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void recoversTheChangesAfterARestart() throws IOException {
+        final ChangeLog changeLog = start(1024 * 1024, 4);
+        assertEquals(3, changeLog.append(payloads(1, 3)));
+        changeLog.stop();
+
+        final ChangeLog restarted = start(1024 * 1024, 4);
+        assertEquals(3, restarted.getLastSequence());
+        assertEquals(changes(1, 3), payloadsOf(restarted.read(0, 10)));
+        assertEquals(5, restarted.append(payloads(4, 5)));
+        assertEquals(changes(4, 5), payloadsOf(restarted.read(3, 10)));
+    }
+
+    @Test
+    void stopsRecoveringAtTheFirstCorruptRecord() throws IOException {
+        final ChangeLog changeLog = start(1024 * 1024, 4);
+        changeLog.append(payloads(1, 3));
+        changeLog.stop();
+        final File segment = directory.listFiles((dir, name) -> name.endsWith(".log"))[0];
+        final int secondPayload = HEADER_SIZE + "change-1".length() + HEADER_SIZE;
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(secondPayload);
+            file.write('X');
+        }
+
+        final ChangeLog recovered = start(1024 * 1024, 4);
+        assertEquals(1, recovered.getLastSequence());
+        assertEquals(changes(1, 1), payloadsOf(recovered.read(0, 10)));
+        assertEquals(2, recovered.append(Collections.singletonList(bytes("replacement"))));
+        recovered.stop();
+
+        final ChangeLog restarted = start(1024 * 1024, 4);
+        assertEquals(2, restarted.getLastSequence());
+        assertEquals(Arrays.asList("change-1", "replacement"), payloadsOf(restarted.read(0, 10)));
+    }
+
+    @Test
+    void readsFromTheMiddleOfALargeSegment() throws IOException {
+        final ChangeLog changeLog = start(1024 * 1024, 4);
+        changeLog.append(payloads(1, 1_000));
+
+        final List<ChangeLog.Entry> entries = changeLog.read(700, 5);
+        assertEquals(5, entries.size());
+        assertEquals(701, entries.get(0).getSequence());
+        assertEquals("change-705", new String(entries.get(4).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(changes(257, 513), payloadsOf(changeLog.read(256, 257)));
+        changeLog.stop();
+
+        // The index is rebuilt on recovery.
+        assertEquals(changes(1000, 1000), payloadsOf(start(1024 * 1024, 4).read(999, 5)));
+    }
+
+    @Test
+    void dropsTheChangesBeyondTheRetainedSegments() throws IOException {
+        // Five records per segment.
+        final ChangeLog changeLog = start(200, 2);
+        for (int i = 1; i <= 20; i++) {
+            changeLog.append(payloads(i, i));
+        }
+
+        assertFalse(changeLog.isReadable(0));
+        assertFalse(changeLog.isReadable(9));
+        assertNull(changeLog.read(0, 10));
+        assertTrue(changeLog.isReadable(10));
+        assertEquals(changes(11, 20), payloadsOf(changeLog.read(10, 100)));
+        assertTrue(changeLog.isReadable(20));
+        assertFalse(changeLog.isReadable(21));
+    }
+
+    @Test
+    void appendsAResetForTheRequestsOfOtherProcesses() throws IOException {
+        final ChangeLog changeLog = start(1024 * 1024, 4);
+        changeLog.append(payloads(1, 2));
+        changeLog.stop();
+        ChangeLog.requestReset(directory);
+        ChangeLog.requestReset(directory);
+
+        final ChangeLog restarted = start(1024 * 1024, 4);
+        assertEquals(3, restarted.getLastSequence());
+        final List<ChangeLog.Entry> entries = restarted.read(0, 10);
+        assertEquals(3, entries.size());
+        assertFalse(entries.get(1).isReset());
+        assertTrue(entries.get(2).isReset());
+        assertEquals(0, entries.get(2).getPayload().length);
+        assertEquals(0, directory.listFiles((dir, name) -> name.endsWith(".reset")).length);
+        restarted.stop();
+
+        final ChangeLog again = start(1024 * 1024, 4);
+        assertEquals(3, again.getLastSequence());
+        assertTrue(again.read(2, 10).get(0).isReset());
+    }
+
+    private ChangeLog start(final int segmentSize, final int retainedSegments) throws IOException {
+        final ChangeLog changeLog = new ChangeLog(directory, segmentSize, HOUR_MILLIS, HOUR_MILLIS,
+                retainedSegments, scheduler);
+        changeLog.start();
+        return changeLog;
+    }
+
+    private static List<byte[]> payloads(final int first, final int last) {
+        final List<byte[]> payloads = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            payloads.add(bytes("change-" + i));
+        }
+        return payloads;
+    }
+
+    private static List<String> changes(final int first, final int last) {
+        final List<String> changes = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            changes.add("change-" + i);
+        }
+        return changes;
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloadsOf(final List<ChangeLog.Entry> entries) {
+        assertNotNull(entries);
+        final List<String> payloads = new ArrayList<>(entries.size());
+        for (final ChangeLog.Entry entry : entries) {
+            payloads.add(new String(entry.getPayload(), StandardCharsets.UTF_8));
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,107 @@
+package edblancas.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportCommandTest {
+    private static final String HEADER = "brand,gameId,name,console,usd,mxn\n";
+
+    @TempDir
+    File directory;
+
+    @Test
+    void splitsAfterLineBreaksCoveringTheWholeFile() throws IOException {
+        final byte[] content = ("ps4,1,Uncharted,PS4,19.99,399\n"
+                + "ps4,2,The Last of Us,PS4,,\n"
+                + "switch,3,Zelda,Switch,59.99,1199").getBytes(StandardCharsets.UTF_8);
+        final File catalog = write(content);
+        try (RandomAccessFile file = new RandomAccessFile(catalog, "r");
+             FileChannel channel = file.getChannel()) {
+            final List<long[]> chunks = ImportCommand.split(channel, 10);
+            assertEquals(3, chunks.size());
+            long expectedStart = 0;
+            for (final long[] chunk : chunks) {
+                assertEquals(expectedStart, chunk[0]);
+                assertTrue(chunk[1] == content.length || content[(int) chunk[1] - 1] == '\n');
+                expectedStart = chunk[1];
+            }
+            assertEquals(content.length, expectedStart);
+        }
+    }
+
+    @Test
+    void keepsLinesLongerThanTheChunkInOneChunk() throws IOException {
+        final File catalog = write("a,b\nccccccccccccccccccccccccc\nd\n".getBytes(StandardCharsets.UTF_8));
+        try (RandomAccessFile file = new RandomAccessFile(catalog, "r");
+             FileChannel channel = file.getChannel()) {
+            final List<long[]> chunks = ImportCommand.split(channel, 5);
+            assertEquals(2, chunks.size());
+            assertEquals(30, chunks.get(0)[1]);
+        }
+    }
+
+    @Test
+    void skipsTheHeaderOfTheFirstChunkOnly() throws IOException {
+        final File catalog = write((HEADER + "ps4,1,Uncharted,PS4,19.99,399\n" + HEADER + "ps4,x,Bad id,PS4,,\n")
+                .getBytes(StandardCharsets.UTF_8));
+        try (RandomAccessFile file = new RandomAccessFile(catalog, "r");
+             FileChannel channel = file.getChannel()) {
+            final List<long[]> chunks = ImportCommand.split(channel, HEADER.length() + 10);
+            assertEquals(2, chunks.size());
+            final ImportCommand.Stats stats = new ImportCommand.Stats();
+            for (int i = 0; i < chunks.size(); i++) {
+                ImportCommand.importChunk(channel, i, chunks.get(i), null, 10, new Semaphore(10), stats);
+            }
+            assertEquals(3, stats.rows.sum());
+            assertEquals(1, stats.imported.sum());
+            assertEquals(2, stats.parseErrors.sum());
+        }
+    }
+
+    @Test
+    void resumesTheCompletedChunksOfTheSameCatalog() throws IOException {
+        final File catalog = write(HEADER.getBytes(StandardCharsets.UTF_8));
+        final File checkpointFile = new File(directory, "catalog.csv.checkpoint");
+        final ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpointFile, catalog, 1024);
+        checkpoint.complete(1);
+        checkpoint.complete(3);
+
+        final ImportCheckpoint resumed = ImportCheckpoint.open(checkpointFile, catalog, 1024);
+        assertTrue(resumed.isCompleted(1));
+        assertTrue(resumed.isCompleted(3));
+        assertFalse(resumed.isCompleted(0));
+        assertFalse(resumed.isCompleted(2));
+    }
+
+    @Test
+    void startsOverWithAnotherChunkSizeOrCatalog() throws IOException {
+        final File catalog = write(HEADER.getBytes(StandardCharsets.UTF_8));
+        final File checkpointFile = new File(directory, "catalog.csv.checkpoint");
+        ImportCheckpoint.open(checkpointFile, catalog, 1024).complete(0);
+
+        assertFalse(ImportCheckpoint.open(checkpointFile, catalog, 2048).isCompleted(0));
+
+        ImportCheckpoint.open(checkpointFile, catalog, 1024).complete(0);
+        Files.write(catalog.toPath(), (HEADER + "ps4,1,Uncharted,PS4,,\n").getBytes(StandardCharsets.UTF_8));
+        assertFalse(ImportCheckpoint.open(checkpointFile, catalog, 1024).isCompleted(0));
+    }
+
+    private File write(final byte[] content) throws IOException {
+        final File catalog = new File(directory, "catalog.csv");
+        Files.write(catalog.toPath(), content);
+        return catalog;
+    }
+}
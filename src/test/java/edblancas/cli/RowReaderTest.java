@@ -0,0 +1,86 @@
+package edblancas.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowReaderTest {
+
+    @Test
+    void splitsFieldsAtCommas() {
+        assertEquals(Arrays.asList(Arrays.asList("ps4", "1", "Uncharted", "PS4", "19.99", "")),
+                rows("ps4,1,Uncharted,PS4,19.99,\n"));
+    }
+
+    @Test
+    void keepsCommasAndEscapedQuotesInsideQuotedFields() {
+        assertEquals(Arrays.asList(Arrays.asList("ps4", "Ratchet, \"Clank\"", "x")),
+                rows("ps4,\"Ratchet, \"\"Clank\"\"\",x\n"));
+    }
+
+    @Test
+    void dropsTheCarriageReturnOfCrlfLines() {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), rows("a,b\r\nc,d\r\n"));
+    }
+
+    @Test
+    void readsTheLastRowWithoutLineBreak() {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), rows("a,b\nc,d"));
+    }
+
+    @Test
+    void decodesMultiByteUtf8() {
+        assertEquals(Arrays.asList(Arrays.asList("switch", "Pokémon ポケモン", "€")),
+                rows("switch,Pokémon ポケモン,€\n"));
+    }
+
+    @Test
+    void growsTheFieldBufferForLongFields() {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            name.append('ü');
+        }
+        assertEquals(Arrays.asList(Arrays.asList("ps4", name.toString())), rows("ps4," + name + "\n"));
+    }
+
+    @Test
+    void reportsBlankLines() {
+        final ImportCommand.RowReader reader = reader("\na\n");
+        reader.next();
+        assertTrue(reader.isBlank());
+        reader.next();
+        assertFalse(reader.isBlank());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void reportsRowsEndingInsideQuotes() {
+        final ImportCommand.RowReader reader = reader("ps4,\"broken\nname\",x\n");
+        reader.next();
+        assertTrue(reader.isQuoteOpen());
+        assertEquals("ps4,\"broken", reader.line());
+    }
+
+    private static List<List<String>> rows(final String text) {
+        final ImportCommand.RowReader reader = reader(text);
+        final List<List<String>> rows = new ArrayList<>();
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            rows.add(new ArrayList<>(fields));
+        }
+        return rows;
+    }
+
+    private static ImportCommand.RowReader reader(final String text) {
+        return new ImportCommand.RowReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
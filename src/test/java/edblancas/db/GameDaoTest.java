@@ -0,0 +1,37 @@
+package edblancas.db;
+
+import edblancas.api.Game;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameDaoTest {
+    private final GameDao gameDao = new GameDao(null);
+
+    @Test
+    void keepsBrandsThatPrefixEachOtherApart() {
+        assertFalse(Bytes.equals(key("ps4", 1), key("ps", 41)));
+        assertTrue(Bytes.compareTo(key("ps", Long.MAX_VALUE), key("ps4", 0)) < 0);
+    }
+
+    @Test
+    void sortsTheGamesOfABrandById() {
+        assertTrue(Bytes.compareTo(key("ps4", 2), key("ps4", 10)) < 0);
+        assertTrue(Bytes.compareTo(key("ps4", 255), key("ps4", 256)) < 0);
+        assertTrue(Bytes.compareTo(key("ps4", -1), key("ps4", 0)) < 0);
+    }
+
+    @Test
+    void rejectsFilteredScansWhenSalted() {
+        gameDao.setSalting(4, null, null);
+        assertThrows(IllegalStateException.class, () -> gameDao.scan(new PrefixFilter(Bytes.toBytes("ps4"))));
+    }
+
+    private byte[] key(final String brand, final long gameId) {
+        return gameDao.createRowKey(new Game.Key(brand, gameId));
+    }
+}
@@ -0,0 +1,145 @@
+package edblancas.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edblancas.api.Change;
+import edblancas.changes.ChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameChangesResourceTest {
+    private static final long HOUR_MILLIS = 3_600_000;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @TempDir
+    File directory;
+
+    @AfterEach
+    void stopExecutors() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void answersGoneWithAResetForChangesNoLongerRetained() throws Exception {
+        final ChangeLog changeLog = new ChangeLog(directory, 200, HOUR_MILLIS, HOUR_MILLIS, 2, scheduler);
+        changeLog.start();
+        for (int i = 1; i <= 20; i++) {
+            changeLog.append(Collections.singletonList(("change-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        final GameChangesResource resource = new GameChangesResource(changeLog, new ObjectMapper(), 1_000, 1_000,
+                executor, executor);
+
+        final Response gone = poll(resource, 0);
+        assertEquals(410, gone.getStatus());
+        assertEquals(Change.Type.RESET, ((Change) gone.getEntity()).getType());
+        assertEquals(20, ((Change) gone.getEntity()).getSequence());
+
+        final Response retained = poll(resource, 15);
+        assertEquals(200, retained.getStatus());
+        assertEquals(5, ((List<?>) retained.getEntity()).size());
+
+        assertEquals(410, poll(resource, 21).getStatus());
+    }
+
+    private static Response poll(final GameChangesResource resource, final long since) throws Exception {
+        final ResumedResponse response = new ResumedResponse();
+        resource.getChanges(since, 100, response);
+        return (Response) response.resumed.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Captures the object the response is resumed with.
+     */
+    private static final class ResumedResponse implements AsyncResponse {
+        private final CompletableFuture<Object> resumed = new CompletableFuture<>();
+
+        @Override
+        public boolean resume(final Object response) {
+            return resumed.complete(response);
+        }
+
+        @Override
+        public boolean resume(final Throwable response) {
+            return resumed.completeExceptionally(response);
+        }
+
+        @Override
+        public boolean cancel() {
+            return resumed.cancel(false);
+        }
+
+        @Override
+        public boolean cancel(final int retryAfter) {
+            return cancel();
+        }
+
+        @Override
+        public boolean cancel(final Date retryAfter) {
+            return cancel();
+        }
+
+        @Override
+        public boolean isSuspended() {
+            return !resumed.isDone();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return resumed.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return resumed.isDone();
+        }
+
+        @Override
+        public boolean setTimeout(final long time, final TimeUnit unit) {
+            return true;
+        }
+
+        @Override
+        public void setTimeoutHandler(final TimeoutHandler handler) {
+        }
+
+        @Override
+        public Collection<Class<?>> register(final Class<?> callback) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Class<?> callback, final Class<?>... callbacks) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Collection<Class<?>> register(final Object callback) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Object callback, final Object... callbacks) {
+            return Collections.emptyMap();
+        }
+    }
+}